@@ -0,0 +1,183 @@
+package swingmvc.benchmarks;
+
+import binding.BindingGroup;
+import swingmvc.core.Command;
+import swingmvc.core.Controller;
+
+import javax.swing.*;
+
+/**
+ * Controller with configurable number of bindings, commands bound to buttons and buttons per command.
+ * Declares command "run" and 32 empty commands c0..c31.
+ * @author elwood
+ */
+public class BenchmarkController extends Controller<BenchmarkView, BenchmarkVM> {
+
+    public static final int COMMANDS = 32;
+
+    private final int bindingsCount;
+    private final int commandsCount;
+    private final int buttonsPerCommand;
+
+    int executed;
+
+    public BenchmarkController(int bindingsCount, int commandsCount, int buttonsPerCommand) {
+        this.bindingsCount = bindingsCount;
+        this.commandsCount = commandsCount;
+        this.buttonsPerCommand = buttonsPerCommand;
+    }
+
+    @Override
+    protected void setupBindings(BindingGroup bindings) {
+        for (int i = 0; i < bindingsCount; i++) {
+            bindings.add(view.fields[i], "text", "p" + i);
+        }
+    }
+
+    @Override
+    protected void onInitialized() {
+        for (int i = 0; i < commandsCount; i++) {
+            for (int j = 0; j < buttonsPerCommand; j++) {
+                bindButtonToCommand(new JButton(), "c" + i);
+            }
+        }
+    }
+
+    @Override
+    protected boolean canExecuteCommand(String commandName) {
+        return true;
+    }
+
+    @Command("run")
+    void run() {
+        executed++;
+    }
+
+    @Command("c0")
+    void c0() {
+    }
+
+    @Command("c1")
+    void c1() {
+    }
+
+    @Command("c2")
+    void c2() {
+    }
+
+    @Command("c3")
+    void c3() {
+    }
+
+    @Command("c4")
+    void c4() {
+    }
+
+    @Command("c5")
+    void c5() {
+    }
+
+    @Command("c6")
+    void c6() {
+    }
+
+    @Command("c7")
+    void c7() {
+    }
+
+    @Command("c8")
+    void c8() {
+    }
+
+    @Command("c9")
+    void c9() {
+    }
+
+    @Command("c10")
+    void c10() {
+    }
+
+    @Command("c11")
+    void c11() {
+    }
+
+    @Command("c12")
+    void c12() {
+    }
+
+    @Command("c13")
+    void c13() {
+    }
+
+    @Command("c14")
+    void c14() {
+    }
+
+    @Command("c15")
+    void c15() {
+    }
+
+    @Command("c16")
+    void c16() {
+    }
+
+    @Command("c17")
+    void c17() {
+    }
+
+    @Command("c18")
+    void c18() {
+    }
+
+    @Command("c19")
+    void c19() {
+    }
+
+    @Command("c20")
+    void c20() {
+    }
+
+    @Command("c21")
+    void c21() {
+    }
+
+    @Command("c22")
+    void c22() {
+    }
+
+    @Command("c23")
+    void c23() {
+    }
+
+    @Command("c24")
+    void c24() {
+    }
+
+    @Command("c25")
+    void c25() {
+    }
+
+    @Command("c26")
+    void c26() {
+    }
+
+    @Command("c27")
+    void c27() {
+    }
+
+    @Command("c28")
+    void c28() {
+    }
+
+    @Command("c29")
+    void c29() {
+    }
+
+    @Command("c30")
+    void c30() {
+    }
+
+    @Command("c31")
+    void c31() {
+    }
+}
@@ -0,0 +1,14 @@
+package swingmvc.benchmarks;
+
+import swingmvc.core.JPanelModule;
+
+/**
+ * Module constructed via factories (no reflection).
+ * @author elwood
+ */
+public class BenchmarkModule extends JPanelModule<BenchmarkView, BenchmarkVM, BenchmarkController> {
+
+    public BenchmarkModule(final int bindingsCount, final int commandsCount, final int buttonsPerCommand) {
+        super(BenchmarkView::new, () -> new BenchmarkController(bindingsCount, commandsCount, buttonsPerCommand));
+    }
+}
@@ -0,0 +1,234 @@
+package swingmvc.benchmarks;
+
+import swingmvc.core.ViewModel;
+
+/**
+ * View model with 16 string properties (p0..p15).
+ * @author elwood
+ */
+public class BenchmarkVM extends ViewModel {
+
+    public static final int PROPERTIES = 16;
+
+    private String p0;
+    private String p1;
+    private String p2;
+    private String p3;
+    private String p4;
+    private String p5;
+    private String p6;
+    private String p7;
+    private String p8;
+    private String p9;
+    private String p10;
+    private String p11;
+    private String p12;
+    private String p13;
+    private String p14;
+    private String p15;
+
+    public BenchmarkVM() {
+    }
+
+    public BenchmarkVM(String prefix) {
+        p0 = prefix + 0;
+        p1 = prefix + 1;
+        p2 = prefix + 2;
+        p3 = prefix + 3;
+        p4 = prefix + 4;
+        p5 = prefix + 5;
+        p6 = prefix + 6;
+        p7 = prefix + 7;
+        p8 = prefix + 8;
+        p9 = prefix + 9;
+        p10 = prefix + 10;
+        p11 = prefix + 11;
+        p12 = prefix + 12;
+        p13 = prefix + 13;
+        p14 = prefix + 14;
+        p15 = prefix + 15;
+    }
+
+    /**
+     * Raises change of specified property without changing it.
+     */
+    public void raise(String propertyName) {
+        raisePropertyChange(propertyName);
+    }
+
+    public String getP0() {
+        return p0;
+    }
+
+    public void setP0(String p0) {
+        if (this.p0 == null ? p0 != null : !this.p0.equals(p0)) {
+            this.p0 = p0;
+            raisePropertyChange("p0");
+        }
+    }
+
+    public String getP1() {
+        return p1;
+    }
+
+    public void setP1(String p1) {
+        if (this.p1 == null ? p1 != null : !this.p1.equals(p1)) {
+            this.p1 = p1;
+            raisePropertyChange("p1");
+        }
+    }
+
+    public String getP2() {
+        return p2;
+    }
+
+    public void setP2(String p2) {
+        if (this.p2 == null ? p2 != null : !this.p2.equals(p2)) {
+            this.p2 = p2;
+            raisePropertyChange("p2");
+        }
+    }
+
+    public String getP3() {
+        return p3;
+    }
+
+    public void setP3(String p3) {
+        if (this.p3 == null ? p3 != null : !this.p3.equals(p3)) {
+            this.p3 = p3;
+            raisePropertyChange("p3");
+        }
+    }
+
+    public String getP4() {
+        return p4;
+    }
+
+    public void setP4(String p4) {
+        if (this.p4 == null ? p4 != null : !this.p4.equals(p4)) {
+            this.p4 = p4;
+            raisePropertyChange("p4");
+        }
+    }
+
+    public String getP5() {
+        return p5;
+    }
+
+    public void setP5(String p5) {
+        if (this.p5 == null ? p5 != null : !this.p5.equals(p5)) {
+            this.p5 = p5;
+            raisePropertyChange("p5");
+        }
+    }
+
+    public String getP6() {
+        return p6;
+    }
+
+    public void setP6(String p6) {
+        if (this.p6 == null ? p6 != null : !this.p6.equals(p6)) {
+            this.p6 = p6;
+            raisePropertyChange("p6");
+        }
+    }
+
+    public String getP7() {
+        return p7;
+    }
+
+    public void setP7(String p7) {
+        if (this.p7 == null ? p7 != null : !this.p7.equals(p7)) {
+            this.p7 = p7;
+            raisePropertyChange("p7");
+        }
+    }
+
+    public String getP8() {
+        return p8;
+    }
+
+    public void setP8(String p8) {
+        if (this.p8 == null ? p8 != null : !this.p8.equals(p8)) {
+            this.p8 = p8;
+            raisePropertyChange("p8");
+        }
+    }
+
+    public String getP9() {
+        return p9;
+    }
+
+    public void setP9(String p9) {
+        if (this.p9 == null ? p9 != null : !this.p9.equals(p9)) {
+            this.p9 = p9;
+            raisePropertyChange("p9");
+        }
+    }
+
+    public String getP10() {
+        return p10;
+    }
+
+    public void setP10(String p10) {
+        if (this.p10 == null ? p10 != null : !this.p10.equals(p10)) {
+            this.p10 = p10;
+            raisePropertyChange("p10");
+        }
+    }
+
+    public String getP11() {
+        return p11;
+    }
+
+    public void setP11(String p11) {
+        if (this.p11 == null ? p11 != null : !this.p11.equals(p11)) {
+            this.p11 = p11;
+            raisePropertyChange("p11");
+        }
+    }
+
+    public String getP12() {
+        return p12;
+    }
+
+    public void setP12(String p12) {
+        if (this.p12 == null ? p12 != null : !this.p12.equals(p12)) {
+            this.p12 = p12;
+            raisePropertyChange("p12");
+        }
+    }
+
+    public String getP13() {
+        return p13;
+    }
+
+    public void setP13(String p13) {
+        if (this.p13 == null ? p13 != null : !this.p13.equals(p13)) {
+            this.p13 = p13;
+            raisePropertyChange("p13");
+        }
+    }
+
+    public String getP14() {
+        return p14;
+    }
+
+    public void setP14(String p14) {
+        if (this.p14 == null ? p14 != null : !this.p14.equals(p14)) {
+            this.p14 = p14;
+            raisePropertyChange("p14");
+        }
+    }
+
+    public String getP15() {
+        return p15;
+    }
+
+    public void setP15(String p15) {
+        if (this.p15 == null ? p15 != null : !this.p15.equals(p15)) {
+            this.p15 = p15;
+            raisePropertyChange("p15");
+        }
+    }
+}
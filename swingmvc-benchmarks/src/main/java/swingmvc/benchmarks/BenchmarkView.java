@@ -0,0 +1,19 @@
+package swingmvc.benchmarks;
+
+import javax.swing.*;
+
+/**
+ * View with one text field per property of {@link BenchmarkVM}.
+ * @author elwood
+ */
+public class BenchmarkView extends JPanel {
+
+    final JTextField[] fields = new JTextField[BenchmarkVM.PROPERTIES];
+
+    public BenchmarkView() {
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = new JTextField();
+            add(fields[i]);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package swingmvc.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import swingmvc.core.ICommand;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of command execution: generated dispatcher vs reflective (MethodHandle) dispatch.
+ * @author elwood
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class CommandDispatchBenchmark {
+
+    BenchmarkController generatedController;
+    ReflectiveController reflectiveController;
+    ICommand generated;
+    ICommand reflective;
+
+    @Setup
+    public void setup() {
+        generatedController = new BenchmarkModule(0, 0, 0).getController();
+        reflectiveController = new ReflectiveModule().getController();
+        generated = generatedController.getCommandByName("run");
+        reflective = reflectiveController.getCommandByName("run");
+    }
+
+    @Benchmark
+    public int executeGenerated() {
+        generated.execute();
+        return generatedController.executed;
+    }
+
+    @Benchmark
+    public int executeReflective() {
+        reflective.execute();
+        return reflectiveController.executed;
+    }
+
+    @Benchmark
+    public ICommand lookupAndExecute() {
+        ICommand command = generatedController.getCommandByName("run");
+        command.execute();
+        return command;
+    }
+}
@@ -0,0 +1,51 @@
+package swingmvc.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controller logic driven without view and EDT: headless initialization,
+ * property change round trip (model notification, dependent command refresh) and command execution.
+ * @author elwood
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class HeadlessControllerBenchmark {
+
+    BenchmarkVM model;
+    BenchmarkController controller;
+    int counter;
+
+    @Setup
+    public void setup() {
+        model = new BenchmarkVM();
+        controller = new BenchmarkController(0, 4, 1);
+        controller.setModel(model);
+        controller.initializeHeadless(null);
+    }
+
+    @Benchmark
+    public BenchmarkController initializeHeadless() {
+        BenchmarkController created = new BenchmarkController(0, 4, 1);
+        created.setModel(new BenchmarkVM());
+        created.initializeHeadless(null);
+        return created;
+    }
+
+    @Benchmark
+    public BenchmarkController propertyChange() {
+        model.setP0(String.valueOf(counter++ & 7));
+        return controller;
+    }
+
+    @Benchmark
+    public int executeCommand() {
+        controller.getCommandByName("run").execute();
+        return controller.executed;
+    }
+}
@@ -0,0 +1,28 @@
+package swingmvc.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of full {@code JPanelModule} construction: view, controller, commands and bindings.
+ * @author elwood
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ModuleConstructionBenchmark {
+
+    @Benchmark
+    public Object factoryModule() {
+        return new BenchmarkModule(4, 4, 1);
+    }
+
+    @Benchmark
+    public Object reflectiveModule() {
+        return new ReflectiveModule();
+    }
+}
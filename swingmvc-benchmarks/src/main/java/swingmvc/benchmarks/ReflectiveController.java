@@ -0,0 +1,24 @@
+package swingmvc.benchmarks;
+
+import swingmvc.core.Command;
+import swingmvc.core.Controller;
+
+/**
+ * Controller with private command method, so swingmvc-processor does not generate dispatcher for it
+ * and commands are called via reflection.
+ * @author elwood
+ */
+public class ReflectiveController extends Controller<BenchmarkView, BenchmarkVM> {
+
+    int executed;
+
+    @Override
+    protected boolean canExecuteCommand(String commandName) {
+        return true;
+    }
+
+    @Command("run")
+    private void run() {
+        executed++;
+    }
+}
@@ -0,0 +1,12 @@
+package swingmvc.benchmarks;
+
+import swingmvc.core.JPanelModule;
+
+/**
+ * Module constructed via viewClass()/controllerClass() (reflection).
+ * @author elwood
+ */
+public class ReflectiveModule extends JPanelModule<BenchmarkView, BenchmarkVM, ReflectiveController> {
+    protected Class<BenchmarkView> viewClass() { return BenchmarkView.class; }
+    protected Class<ReflectiveController> controllerClass() { return ReflectiveController.class; }
+}
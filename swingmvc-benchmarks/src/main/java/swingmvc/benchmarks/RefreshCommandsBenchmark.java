@@ -0,0 +1,37 @@
+package swingmvc.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@code Controller.refreshCanExecuteCommands} with N commands bound to M buttons each.
+ * @author elwood
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class RefreshCommandsBenchmark {
+
+    @Param({"1", "8", "32"})
+    int commands;
+
+    @Param({"1", "4"})
+    int buttons;
+
+    BenchmarkController controller;
+
+    @Setup
+    public void setup() {
+        controller = new BenchmarkModule(0, commands, buttons).getController();
+    }
+
+    @Benchmark
+    public BenchmarkController refreshCanExecuteCommands() {
+        controller.refreshCanExecuteCommands();
+        return controller;
+    }
+}
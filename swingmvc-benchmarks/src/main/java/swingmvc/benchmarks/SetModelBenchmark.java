@@ -0,0 +1,41 @@
+package swingmvc.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@code Controller.setModel} (rebinding) with different number of bindings.
+ * @author elwood
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class SetModelBenchmark {
+
+    @Param({"1", "4", "16"})
+    int bindings;
+
+    BenchmarkController controller;
+    BenchmarkVM first;
+    BenchmarkVM second;
+    boolean flip;
+
+    @Setup
+    public void setup() {
+        controller = new BenchmarkModule(bindings, 0, 0).getController();
+        first = new BenchmarkVM("a");
+        second = new BenchmarkVM("b");
+    }
+
+    @Benchmark
+    public BenchmarkVM setModel() {
+        flip = !flip;
+        BenchmarkVM model = flip ? first : second;
+        controller.setModel(model);
+        return model;
+    }
+}
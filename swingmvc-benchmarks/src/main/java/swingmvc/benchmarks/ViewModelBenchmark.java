@@ -0,0 +1,49 @@
+package swingmvc.benchmarks;
+
+import binding.IPropertyChangedListener;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@code ViewModel.raisePropertyChange} with different number of listeners.
+ * @author elwood
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ViewModelBenchmark {
+
+    @Param({"1", "10", "100"})
+    int listeners;
+
+    BenchmarkVM model;
+    CountingListener listener;
+
+    static class CountingListener implements IPropertyChangedListener {
+        int count;
+
+        @Override
+        public void propertyChanged(String propertyName) {
+            count++;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        model = new BenchmarkVM();
+        listener = new CountingListener();
+        for (int i = 0; i < listeners; i++) {
+            model.addPropertyChangedListener(listener);
+        }
+    }
+
+    @Benchmark
+    public int raisePropertyChange() {
+        model.raise("p0");
+        return listener.count;
+    }
+}
@@ -1,69 +1,81 @@
-package swingmvc.PersonInfoTable;
-
-import binding.BindingMode;
-import binding.UpdateSourceTrigger;
-import javax.swing.JFrame;
-import javax.swing.JOptionPane;
-import javax.swing.SwingUtilities;
-import swingmvc.actiondialog.ActionDialogModule;
-import swingmvc.core.Command;
-import swingmvc.core.Controller;
-
-/**
- *
- * @author elwood
- */
-public class PersonTableController extends Controller<PersonTableJPanel, PersonVM> {
-    
-    private PersonVM model;
-    
-    protected void onInitialized() {
-        bindButtonToCommand(view.buttonSave, "save");
-        bindButtonToCommand(view.buttonClear, "clear");
-    }
-    
-    protected void onUnload() {
-        JOptionPane.showMessageDialog(view, "Unloaded.");
-    }
-    
-    @Command("save")
-    private void save() {
-        ActionDialogModule dlg = new ActionDialogModule((JFrame) SwingUtilities.windowForComponent(view), true);
-        dlg.getView().setModal(true);
-        dlg.getView().setVisible(true);
-    }
-    
-    @Command("clear")
-    private void clear() {
-        model.setName(null);
-        model.setAge(null);
-    }
-
-    @Override
-    protected boolean canExecuteCommand(String commandName) {
-        if ("save".equals(commandName)) {
-            return model != null && model.getName() != null && !model.getName().isEmpty() && model.getAge() != null && model.getAge() > 10;
-        } else if ("clear".equals(commandName)) {
-            return true;
-        }
-        return super.canExecuteCommand(commandName);
-    }
-
-    @Override
-    protected void onModelChanged(PersonVM oldModel, PersonVM newModel) {
-        model = newModel;
-    }
-
-    @Override
-    protected void setupBindings(binding.BindingGroup bindings) {
-        bindings.add(view.textfieldName, "text", "name");
-        bindings.add(view.textfieldAge, "text", "age", BindingMode.Default, UpdateSourceTrigger.PropertyChanged);
-    }
-    
-    @Override
-    protected void onModelPropertyChanged(String propertyName) {
-        if ("name".equals(propertyName) || "age".equals(propertyName)) {
-            refreshCanExecuteCommand("save");
-        }
-    }
-}
+package swingmvc.PersonInfoTable;
+
+import binding.BindingMode;
+import binding.UpdateSourceTrigger;
+import javax.swing.JFrame;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import swingmvc.actiondialog.ActionDialogModule;
+import swingmvc.core.Command;
+import swingmvc.core.Controller;
+import swingmvc.core.DialogModulePool;
+import swingmvc.core.ViewModel;
+
+/**
+ *
+ * @author elwood
+ */
+public class PersonTableController extends Controller<PersonTableJPanel, PersonVM> {
+    
+    private PersonVM model;
+    private DialogModulePool<ActionDialogModule, ViewModel> dialogs;
+    
+    protected void onInitialized() {
+        dialogs = new DialogModulePool<ActionDialogModule, ViewModel>(
+                () -> new ActionDialogModule((JFrame) SwingUtilities.windowForComponent(view), true), 1);
+        bindButtonToCommand(view.buttonSave, PersonTableController_Commands.SAVE);
+        bindButtonToCommand(view.buttonClear, PersonTableController_Commands.CLEAR);
+    }
+    
+    protected void onUnload() {
+        dialogs.clear();
+        JOptionPane.showMessageDialog(view, "Unloaded.");
+    }
+    
+    @Command(value = "save", dependsOn = {"name", "age"})
+    void save() {
+        ActionDialogModule dlg = dialogs.acquire(new ViewModel());
+        dlg.getView().setVisible(true);
+    }
+    
+    @Command("clear")
+    void clear() {
+        model.batch(new Runnable() {
+            @Override
+            public void run() {
+                model.setName(null);
+                model.setAge(null);
+            }
+        });
+    }
+
+    @Override
+    protected boolean canExecuteCommand(String commandName) {
+        if (PersonTableController_Commands.SAVE.equals(commandName)) {
+            boolean canSave = model != null && model.getName() != null && !model.getName().isEmpty() && model.getAge() != null && model.getAge() > 10;
+            // dialog is likely to be shown soon, and its owner frame is shown already
+            if (canSave && null != SwingUtilities.windowForComponent(view)) dialogs.prewarm(1);
+            return canSave;
+        } else if (PersonTableController_Commands.CLEAR.equals(commandName)) {
+            return true;
+        }
+        return super.canExecuteCommand(commandName);
+    }
+
+    @Override
+    protected boolean isDeferredCommandRefresh() {
+        // age text field updates model on every keystroke
+        return true;
+    }
+
+    @Override
+    protected void onModelChanged(PersonVM oldModel, PersonVM newModel) {
+        model = newModel;
+    }
+
+    @Override
+    protected void setupBindings(binding.BindingGroup bindings) {
+        bindings.add(view.textfieldName, "text", "name");
+        bindings.add(view.textfieldAge, "text", "age", BindingMode.Default, UpdateSourceTrigger.PropertyChanged);
+    }
+}
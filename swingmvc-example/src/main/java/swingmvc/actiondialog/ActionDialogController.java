@@ -1,16 +1,16 @@
-/*
- * To change this template, choose Tools | Templates
- * and open the template in the editor.
- */
-package swingmvc.actiondialog;
-
-import swingmvc.core.Controller;
-import swingmvc.core.ViewModel;
-
-/**
- *
- * @author elwood
- */
-public class ActionDialogController extends Controller<ActionDialog, ViewModel> {
-    
-}
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package swingmvc.actiondialog;
+
+import swingmvc.core.Controller;
+import swingmvc.core.ViewModel;
+
+/**
+ *
+ * @author elwood
+ */
+public class ActionDialogController extends Controller<ActionDialog, ViewModel> {
+    
+}
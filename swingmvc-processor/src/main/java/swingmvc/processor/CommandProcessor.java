@@ -0,0 +1,353 @@
+package swingmvc.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates reflection-free {@code swingmvc.core.CommandDispatcher} for each concrete controller class
+ * that declares {@code swingmvc.core.Command} methods. Controllers that only inherit commands have no dispatcher
+ * and are scanned using reflection at runtime.
+ * Generated class has the name of controller class with "_Commands" suffix and contains
+ * constants for all command names, so misspelled command names become compile-time errors when code uses
+ * these constants (command names passed as string literals are still checked only at runtime).
+ * Also validates {@code swingmvc.core.Command} methods during compilation.
+ * @author elwood
+ */
+@SupportedAnnotationTypes("swingmvc.core.Command")
+public class CommandProcessor extends AbstractProcessor {
+
+    static final String CONTROLLER = "swingmvc.core.Controller";
+    static final String COMMAND = "swingmvc.core.Command";
+    static final String DISPATCHER = "swingmvc.core.CommandDispatcher";
+    static final String SUFFIX = "_Commands";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Elements elements = processingEnv.getElementUtils();
+        TypeElement controllerType = elements.getTypeElement(CONTROLLER);
+        TypeElement commandType = elements.getTypeElement(COMMAND);
+        if (null == controllerType || null == commandType) return false;
+
+        // controllers are found through their command methods
+        Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(commandType)) {
+            validate((ExecutableElement) element);
+            types.add((TypeElement) element.getEnclosingElement());
+        }
+        for (TypeElement type : types) {
+            if (isConcreteController(type, controllerType)) {
+                generate(type);
+            }
+        }
+        // do not claim any annotations
+        return false;
+    }
+
+    private boolean isConcreteController(TypeElement type, TypeElement controllerType) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) return false;
+        if (type.getQualifiedName().contentEquals(CONTROLLER)) return false;
+        Types typeUtils = processingEnv.getTypeUtils();
+        return typeUtils.isSubtype(typeUtils.erasure(type.asType()), typeUtils.erasure(controllerType.asType()));
+    }
+
+    /**
+     * Reports errors for incorrectly declared command methods.
+     */
+    private void validate(ExecutableElement method) {
+        Messager messager = processingEnv.getMessager();
+        String name = commandName(method);
+        if (null == name || name.isEmpty()) {
+            messager.printMessage(Diagnostic.Kind.ERROR, String.format("commandName on method %s is null or empty", method.getSimpleName()), method);
+        }
+        if (!method.getParameters().isEmpty() || method.getModifiers().contains(Modifier.STATIC)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, String.format("Command method %s should be non-static and have no parameters", method.getSimpleName()), method);
+        }
+        if (null != name) {
+            for (ExecutableElement other : ElementFilter.methodsIn(method.getEnclosingElement().getEnclosedElements())) {
+                if (other != method && name.equals(commandName(other))) {
+                    messager.printMessage(Diagnostic.Kind.ERROR, String.format("Command %s is declared twice in %s", name, method.getEnclosingElement()), method);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns value of {@code swingmvc.core.Command} annotation or null if method is not annotated.
+     */
+    static String commandName(ExecutableElement method) {
+        AnnotationMirror mirror = commandMirror(method);
+        if (null == mirror) return null;
+        Object value = annotationValue(mirror, "value");
+        return null == value ? null : value.toString();
+    }
+
+    /**
+     * Returns value of dependsOn attribute of {@code swingmvc.core.Command} annotation.
+     */
+    static List<String> dependsOn(ExecutableElement method) {
+        List<String> result = new ArrayList<String>();
+        AnnotationMirror mirror = commandMirror(method);
+        if (null == mirror) return result;
+        Object value = annotationValue(mirror, "dependsOn");
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                result.add(((AnnotationValue) item).getValue().toString());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns value of async attribute of {@code swingmvc.core.Command} annotation.
+     */
+    static boolean isAsync(ExecutableElement method) {
+        AnnotationMirror mirror = commandMirror(method);
+        return null != mirror && Boolean.TRUE.equals(annotationValue(mirror, "async"));
+    }
+
+    static AnnotationMirror commandMirror(Element method) {
+        for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(COMMAND)) return mirror;
+        }
+        return null;
+    }
+
+    static Object annotationValue(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) return entry.getValue().getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Collects commands of class and its superclasses, subclass commands override superclass ones with the same name.
+     */
+    private Map<String, ExecutableElement> collectCommands(TypeElement type) {
+        Map<String, ExecutableElement> commands = new LinkedHashMap<String, ExecutableElement>();
+        TypeElement current = type;
+        while (current != null && !current.getQualifiedName().contentEquals(CONTROLLER)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(current.getEnclosedElements())) {
+                String name = commandName(method);
+                if (null == name || name.isEmpty() || commands.containsKey(name)) continue;
+                commands.put(name, method);
+            }
+            TypeMirror superclass = current.getSuperclass();
+            if (superclass.getKind() != TypeKind.DECLARED) break;
+            current = (TypeElement) ((DeclaredType) superclass).asElement();
+        }
+        return commands;
+    }
+
+    private boolean isAccessible(TypeElement type, ExecutableElement method) {
+        Messager messager = processingEnv.getMessager();
+        Elements elements = processingEnv.getElementUtils();
+        Set<Modifier> modifiers = method.getModifiers();
+        boolean accessible = modifiers.contains(Modifier.PUBLIC) ||
+                (!modifiers.contains(Modifier.PRIVATE) && elements.getPackageOf(method).equals(elements.getPackageOf(type)));
+        if (!accessible) {
+            messager.printMessage(Diagnostic.Kind.WARNING, String.format(
+                    "Command method %s is not accessible from package of %s, dispatcher is not generated and commands will be called via reflection",
+                    method.getSimpleName(), type.getQualifiedName()), method);
+        }
+        return accessible;
+    }
+
+    private void generate(TypeElement type) {
+        for (Element element = type; element.getKind() == ElementKind.CLASS; element = element.getEnclosingElement()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) return;
+        }
+        Map<String, ExecutableElement> commands = collectCommands(type);
+        for (ExecutableElement method : commands.values()) {
+            if (!method.getParameters().isEmpty() || method.getModifiers().contains(Modifier.STATIC)) return;
+            if (!isAccessible(type, method)) return;
+        }
+        Map<String, String> constants = new LinkedHashMap<String, String>();
+        Set<String> constantNames = new HashSet<String>();
+        for (String name : commands.keySet()) {
+            String constant = constantName(name);
+            if (!constantNames.add(constant)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        String.format("Commands of %s produce the same constant name %s", type.getQualifiedName(), constant), type);
+                return;
+            }
+            constants.put(name, constant);
+        }
+
+        Elements elements = processingEnv.getElementUtils();
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(type).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+        String controllerName = typeReference(type);
+
+        StringBuilder sb = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("/**\n");
+        sb.append(" * Command dispatcher for {@link ").append(type.getQualifiedName()).append("}.\n");
+        sb.append(" * Generated by swingmvc-processor, do not edit.\n");
+        sb.append(" */\n");
+        sb.append("public final class ").append(simpleName).append(" implements ").append(DISPATCHER).append("<").append(controllerName).append("> {\n\n");
+        for (Map.Entry<String, String> entry : constants.entrySet()) {
+            sb.append("    public static final String ").append(entry.getValue()).append(" = ").append(literal(entry.getKey())).append(";\n");
+        }
+        if (!constants.isEmpty()) sb.append("\n");
+        sb.append("    @Override\n");
+        sb.append("    public String[] commandNames() {\n");
+        sb.append("        return new String[] {");
+        boolean first = true;
+        for (String constant : constants.values()) {
+            sb.append(first ? " " : ", ").append(constant);
+            first = false;
+        }
+        sb.append(first ? "};\n" : " };\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    public String[] dependsOn(String commandName) {\n");
+        sb.append("        switch (commandName) {\n");
+        for (Map.Entry<String, ExecutableElement> entry : commands.entrySet()) {
+            List<String> dependsOn = dependsOn(entry.getValue());
+            if (dependsOn.isEmpty()) continue;
+            sb.append("            case ").append(constants.get(entry.getKey())).append(":\n");
+            sb.append("                return new String[] {");
+            for (int i = 0; i < dependsOn.size(); i++) {
+                sb.append(i == 0 ? " " : ", ").append(literal(dependsOn.get(i)));
+            }
+            sb.append(" };\n");
+        }
+        sb.append("            default:\n");
+        sb.append("                return new String[0];\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    public boolean isAsync(String commandName) {\n");
+        sb.append("        switch (commandName) {\n");
+        for (Map.Entry<String, ExecutableElement> entry : commands.entrySet()) {
+            if (!isAsync(entry.getValue())) continue;
+            sb.append("            case ").append(constants.get(entry.getKey())).append(":\n");
+            sb.append("                return true;\n");
+        }
+        sb.append("            default:\n");
+        sb.append("                return false;\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    public void execute(").append(controllerName).append(" controller, String commandName) {\n");
+        sb.append("        switch (commandName) {\n");
+        for (Map.Entry<String, ExecutableElement> entry : commands.entrySet()) {
+            sb.append("            case ").append(constants.get(entry.getKey())).append(":\n");
+            sb.append("                controller.").append(entry.getValue().getSimpleName()).append("();\n");
+            sb.append("                break;\n");
+        }
+        sb.append("            default:\n");
+        sb.append("                throw new RuntimeException(String.format(\"Command %s not found\", commandName));\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+
+        String fileName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(fileName, type);
+            Writer writer = file.openWriter();
+            try {
+                writer.write(sb.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    String.format("Unable to write %s: %s", fileName, e.getMessage()), type);
+        }
+    }
+
+    /**
+     * Returns source reference to type, with wildcards for type parameters.
+     */
+    static String typeReference(TypeElement type) {
+        StringBuilder sb = new StringBuilder(type.getQualifiedName());
+        int parameters = type.getTypeParameters().size();
+        if (parameters > 0) {
+            sb.append('<');
+            for (int i = 0; i < parameters; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append('?');
+            }
+            sb.append('>');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Converts name to upper-case constant name, for example "saveAll" to "SAVE_ALL".
+     */
+    static String constantName(String name) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isJavaIdentifierPart(c) || c == '$') {
+                sb.append('_');
+                continue;
+            }
+            if (Character.isUpperCase(c) && i > 0 && (Character.isLowerCase(name.charAt(i - 1)) || Character.isDigit(name.charAt(i - 1)))) {
+                sb.append('_');
+            }
+            sb.append(Character.toUpperCase(c));
+        }
+        if (sb.length() == 0 || !Character.isJavaIdentifierStart(sb.charAt(0))) {
+            sb.insert(0, '_');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns Java string literal for value.
+     */
+    static String literal(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
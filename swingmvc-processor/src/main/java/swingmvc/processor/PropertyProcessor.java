@@ -0,0 +1,247 @@
+package swingmvc.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates {@code swingmvc.core.PropertyTable} for each view model class with fields marked by
+ * {@code swingmvc.core.ObservableProperty}. Generated class has the name of view model class with "_Properties" suffix
+ * and contains typed {@code swingmvc.core.PropertyKey} constant and int id constant for each marked field.
+ * Ids continue after properties of superclasses, so they are unique in the class hierarchy.
+ * @author elwood
+ */
+@SupportedAnnotationTypes("swingmvc.core.ObservableProperty")
+public class PropertyProcessor extends AbstractProcessor {
+
+    static final String VIEW_MODEL = "swingmvc.core.ViewModel";
+    static final String OBSERVABLE_PROPERTY = "swingmvc.core.ObservableProperty";
+    static final String PROPERTY_KEY = "swingmvc.core.PropertyKey";
+    static final String PROPERTY_TABLE = "swingmvc.core.PropertyTable";
+    static final String SUFFIX = "_Properties";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Elements elements = processingEnv.getElementUtils();
+        TypeElement propertyType = elements.getTypeElement(OBSERVABLE_PROPERTY);
+        TypeElement viewModelType = elements.getTypeElement(VIEW_MODEL);
+        if (null == propertyType || null == viewModelType) return false;
+
+        Map<TypeElement, List<VariableElement>> fields = new LinkedHashMap<TypeElement, List<VariableElement>>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(propertyType)) {
+            VariableElement field = (VariableElement) element;
+            if (!validate(field, viewModelType)) continue;
+            TypeElement type = (TypeElement) field.getEnclosingElement();
+            List<VariableElement> list = fields.get(type);
+            if (null == list) {
+                list = new ArrayList<VariableElement>();
+                fields.put(type, list);
+            }
+            list.add(field);
+        }
+        for (Map.Entry<TypeElement, List<VariableElement>> entry : fields.entrySet()) {
+            generate(entry.getKey(), entry.getValue());
+        }
+        return true;
+    }
+
+    /**
+     * Reports errors for incorrectly declared property fields.
+     */
+    private boolean validate(VariableElement field, TypeElement viewModelType) {
+        Messager messager = processingEnv.getMessager();
+        Types typeUtils = processingEnv.getTypeUtils();
+        Element enclosing = field.getEnclosingElement();
+        Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, String.format("Property field %s should not be private, static or final", field.getSimpleName()), field);
+            return false;
+        }
+        if (enclosing.getKind() != ElementKind.CLASS
+                || !typeUtils.isSubtype(typeUtils.erasure(enclosing.asType()), typeUtils.erasure(viewModelType.asType()))) {
+            messager.printMessage(Diagnostic.Kind.ERROR, String.format("Property field %s should be declared in subclass of %s", field.getSimpleName(), VIEW_MODEL), field);
+            return false;
+        }
+        TypeElement type = (TypeElement) enclosing;
+        if (!type.getTypeParameters().isEmpty()) {
+            messager.printMessage(Diagnostic.Kind.ERROR, String.format("Property keys can't be generated for generic class %s", type.getQualifiedName()), field);
+            return false;
+        }
+        for (Element element = type; element.getKind() == ElementKind.CLASS; element = element.getEnclosingElement()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                messager.printMessage(Diagnostic.Kind.ERROR, String.format("Property keys can't be generated for private class %s", type.getQualifiedName()), field);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isProperty(Element element) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(OBSERVABLE_PROPERTY)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns count of property fields declared in superclasses (including compiled ones).
+     */
+    private static int inheritedPropertyCount(TypeElement type) {
+        int count = 0;
+        TypeMirror superclass = type.getSuperclass();
+        while (superclass.getKind() == TypeKind.DECLARED) {
+            TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+            for (Element member : element.getEnclosedElements()) {
+                if (member.getKind() == ElementKind.FIELD && isProperty(member)) count++;
+            }
+            superclass = element.getSuperclass();
+        }
+        return count;
+    }
+
+    /**
+     * Returns name of property: value of annotation or field name.
+     */
+    private static String propertyName(VariableElement field) {
+        for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (!annotationType.getQualifiedName().contentEquals(OBSERVABLE_PROPERTY)) continue;
+            Object value = CommandProcessor.annotationValue(mirror, "value");
+            if (null != value && !value.toString().isEmpty()) return value.toString();
+        }
+        return field.getSimpleName().toString();
+    }
+
+    private void generate(TypeElement type, List<VariableElement> fields) {
+        Messager messager = processingEnv.getMessager();
+        Types typeUtils = processingEnv.getTypeUtils();
+        Elements elements = processingEnv.getElementUtils();
+
+        Map<String, VariableElement> properties = new LinkedHashMap<String, VariableElement>();
+        Set<String> constantNames = new HashSet<String>();
+        for (VariableElement field : fields) {
+            String name = propertyName(field);
+            String constant = CommandProcessor.constantName(name);
+            if (properties.containsKey(name) || !constantNames.add(constant) || !constantNames.add(constant + "_ID")) {
+                messager.printMessage(Diagnostic.Kind.ERROR, String.format("Properties of %s produce the same constant name %s", type.getQualifiedName(), constant), field);
+                return;
+            }
+            properties.put(name, field);
+        }
+
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(type).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+        String modelName = type.getQualifiedName().toString();
+
+        StringBuilder sb = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("/**\n");
+        sb.append(" * Property keys of {@link ").append(modelName).append("}.\n");
+        sb.append(" * Generated by swingmvc-processor, do not edit.\n");
+        sb.append(" */\n");
+        sb.append("public final class ").append(simpleName).append(" implements ").append(PROPERTY_TABLE).append("<").append(modelName).append("> {\n\n");
+        int id = inheritedPropertyCount(type);
+        for (String name : properties.keySet()) {
+            sb.append("    public static final int ").append(CommandProcessor.constantName(name)).append("_ID = ").append(id++).append(";\n");
+        }
+        sb.append("\n");
+        for (Map.Entry<String, VariableElement> entry : properties.entrySet()) {
+            VariableElement field = entry.getValue();
+            TypeMirror fieldType = field.asType();
+            String valueType = fieldType.getKind().isPrimitive()
+                    ? typeUtils.boxedClass((PrimitiveType) fieldType).getQualifiedName().toString()
+                    : fieldType.toString();
+            String classLiteral = (fieldType.getKind() == TypeKind.DECLARED || fieldType.getKind() == TypeKind.ARRAY
+                    ? typeUtils.erasure(fieldType).toString() : fieldType.toString()) + ".class";
+            String constant = CommandProcessor.constantName(entry.getKey());
+            String keyType = PROPERTY_KEY + "<" + modelName + ", " + valueType + ">";
+            sb.append("    public static final ").append(keyType).append(" ").append(constant).append(" =\n");
+            sb.append("            new ").append(keyType).append("(")
+                    .append(CommandProcessor.literal(entry.getKey())).append(", ").append(constant).append("_ID, ").append(classLiteral).append(") {\n");
+            sb.append("                @Override\n");
+            sb.append("                public ").append(valueType).append(" get(").append(modelName).append(" model) {\n");
+            sb.append("                    return model.").append(field.getSimpleName()).append(";\n");
+            sb.append("                }\n\n");
+            sb.append("                @Override\n");
+            sb.append("                protected void write(").append(modelName).append(" model, ").append(valueType).append(" value) {\n");
+            if (fieldType.getKind().isPrimitive()) {
+                sb.append("                    if (null == value) throw new IllegalArgumentException(")
+                        .append(CommandProcessor.literal(String.format("Property %s of %s is primitive and can't be null", entry.getKey(), modelName))).append(");\n");
+            }
+            sb.append("                    model.").append(field.getSimpleName()).append(" = value;\n");
+            sb.append("                }\n");
+            sb.append("            };\n\n");
+        }
+        sb.append("    /**\n");
+        sb.append("     * Returns key of property with specified name or null if there is no such property.\n");
+        sb.append("     */\n");
+        sb.append("    public static ").append(PROPERTY_KEY).append("<").append(modelName).append(", ?> forName(String name) {\n");
+        sb.append("        if (null == name) return null;\n");
+        sb.append("        switch (name) {\n");
+        for (String name : properties.keySet()) {
+            sb.append("            case ").append(CommandProcessor.literal(name)).append(":\n");
+            sb.append("                return ").append(CommandProcessor.constantName(name)).append(";\n");
+        }
+        sb.append("            default:\n");
+        sb.append("                return null;\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n");
+        sb.append("    public java.util.List<").append(PROPERTY_KEY).append("<").append(modelName).append(", ?>> keys() {\n");
+        sb.append("        java.util.List<").append(PROPERTY_KEY).append("<").append(modelName).append(", ?>> keys = new java.util.ArrayList<")
+                .append(PROPERTY_KEY).append("<").append(modelName).append(", ?>>(").append(properties.size()).append(");\n");
+        for (String name : properties.keySet()) {
+            sb.append("        keys.add(").append(CommandProcessor.constantName(name)).append(");\n");
+        }
+        sb.append("        return keys;\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+
+        String fileName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(fileName, type);
+            Writer writer = file.openWriter();
+            try {
+                writer.write(sb.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                    String.format("Unable to write %s: %s", fileName, e.getMessage()), type);
+        }
+    }
+}
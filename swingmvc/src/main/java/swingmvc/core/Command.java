@@ -1,19 +1,31 @@
-package swingmvc.core;
-
-import java.lang.annotation.ElementType;
-import java.lang.annotation.Retention;
-import java.lang.annotation.RetentionPolicy;
-import java.lang.annotation.Target;
-
-/**
- * Marks method of controller as "command" method.
- * @author elwood
- */
-@Target(ElementType.METHOD)
-@Retention(RetentionPolicy.RUNTIME)
-public @interface Command {
-    /**
-     * Name of command.
-     */
-    String value();
-}
+package swingmvc.core;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks method of controller as "command" method.
+ * @author elwood
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Command {
+    /**
+     * Name of command.
+     */
+    String value();
+
+    /**
+     * Names of view model properties the command availability depends on.
+     * When one of these properties changes, controller refreshes availability of this command automatically.
+     */
+    String[] dependsOn() default {};
+
+    /**
+     * If true, command method is called in background (see {@link IAsyncCommand}),
+     * otherwise it is called on the Event Dispatch Thread.
+     */
+    boolean async() default false;
+}
@@ -0,0 +1,31 @@
+package swingmvc.core;
+
+/**
+ * Reflection-free dispatcher of controller commands.
+ * Implementations are generated by swingmvc-processor for each controller class
+ * (named as controller class with "_Commands" suffix) and picked up by {@link Controller} automatically.
+ * If there is no generated dispatcher, {@link Command} methods are looked up via reflection.
+ * @author elwood
+ */
+public interface CommandDispatcher<TController> {
+    /**
+     * Returns names of all commands declared in controller class and its superclasses.
+     */
+    String[] commandNames();
+
+    /**
+     * Returns names of properties the command depends on (see {@link Command#dependsOn()}).
+     */
+    String[] dependsOn(String commandName);
+
+    /**
+     * Returns true if command should be executed in background (see {@link Command#async()}).
+     */
+    boolean isAsync(String commandName);
+
+    /**
+     * Calls command method on controller.
+     * @throws RuntimeException If specified command not found
+     */
+    void execute(TController controller, String commandName);
+}
@@ -0,0 +1,62 @@
+package swingmvc.core;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds executor used to run asynchronous commands.
+ * @author elwood
+ */
+final class CommandExecutors {
+
+    private static volatile Executor defaultExecutor;
+
+    private CommandExecutors() {
+    }
+
+    static Executor getDefault() {
+        Executor executor = defaultExecutor;
+        if (null == executor) {
+            synchronized (CommandExecutors.class) {
+                executor = defaultExecutor;
+                if (null == executor) {
+                    executor = createDefault();
+                    defaultExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    static void setDefault(Executor executor) {
+        defaultExecutor = executor;
+    }
+
+    /**
+     * Creates virtual-thread-per-task executor if running JVM supports it,
+     * otherwise cached pool of daemon threads.
+     */
+    private static Executor createDefault() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (Exception e) {
+            // virtual threads are not available
+        }
+        return Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "swingmvc-command-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY);
+                return thread;
+            }
+        });
+    }
+}
@@ -0,0 +1,234 @@
+package swingmvc.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable table of {@link Command} methods of one controller class.
+ * Built once per class and shared by all controller instances of this class.
+ * Uses generated {@link CommandDispatcher} if it exists, otherwise scans class using reflection.
+ * @author elwood
+ */
+final class CommandTable {
+
+    private static final MethodType EXECUTE_TYPE = MethodType.methodType(void.class, Object.class);
+
+    private static final ClassValue<CommandTable> TABLES = new ClassValue<CommandTable>() {
+        @Override
+        protected CommandTable computeValue(Class<?> type) {
+            return scan(type);
+        }
+    };
+
+    private static final String DISPATCHER_SUFFIX = "_Commands";
+
+    private static final String[] NO_COMMANDS = new String[0];
+
+    private final Set<String> names;
+    private final Map<String, MethodHandle> handles;
+    private final CommandDispatcher<Object> dispatcher;
+    private final Map<String, String[]> dependentCommands;
+    private final Set<String> asyncCommands;
+    private final String[] undeclaredCommands;
+
+    private CommandTable(Map<String, MethodHandle> handles, Map<String, String[]> dependsOn, Set<String> asyncCommands) {
+        this.handles = Collections.unmodifiableMap(handles);
+        this.names = this.handles.keySet();
+        this.dispatcher = null;
+        this.dependentCommands = index(dependsOn);
+        this.undeclaredCommands = undeclared(dependsOn);
+        this.asyncCommands = asyncCommands;
+    }
+
+    private CommandTable(CommandDispatcher<Object> dispatcher) {
+        this.names = Collections.unmodifiableSet(new LinkedHashSet<String>(Arrays.asList(dispatcher.commandNames())));
+        this.handles = null;
+        this.dispatcher = dispatcher;
+        Map<String, String[]> dependsOn = new LinkedHashMap<String, String[]>();
+        Set<String> asyncCommands = new HashSet<String>();
+        for (String name : names) {
+            dependsOn.put(name, dispatcher.dependsOn(name));
+            if (dispatcher.isAsync(name)) asyncCommands.add(name);
+        }
+        this.dependentCommands = index(dependsOn);
+        this.undeclaredCommands = undeclared(dependsOn);
+        this.asyncCommands = asyncCommands;
+    }
+
+    /**
+     * Builds property name -> dependent commands index.
+     */
+    private static Map<String, String[]> index(Map<String, String[]> dependsOn) {
+        Map<String, List<String>> lists = new LinkedHashMap<String, List<String>>();
+        for (Map.Entry<String, String[]> entry : dependsOn.entrySet()) {
+            for (String propertyName : entry.getValue()) {
+                List<String> commands = lists.get(propertyName);
+                if (null == commands) {
+                    commands = new ArrayList<String>();
+                    lists.put(propertyName, commands);
+                }
+                if (!commands.contains(entry.getKey())) commands.add(entry.getKey());
+            }
+        }
+        Map<String, String[]> index = new HashMap<String, String[]>();
+        for (Map.Entry<String, List<String>> entry : lists.entrySet()) {
+            index.put(entry.getKey(), entry.getValue().toArray(new String[entry.getValue().size()]));
+        }
+        return index;
+    }
+
+    /**
+     * Returns names of commands that have no declared dependencies.
+     */
+    private static String[] undeclared(Map<String, String[]> dependsOn) {
+        List<String> commands = new ArrayList<String>();
+        for (Map.Entry<String, String[]> entry : dependsOn.entrySet()) {
+            if (entry.getValue().length == 0) commands.add(entry.getKey());
+        }
+        return commands.toArray(new String[commands.size()]);
+    }
+
+    /**
+     * Returns command table for specified controller class.
+     */
+    static CommandTable forClass(Class<?> controllerClass) {
+        return TABLES.get(controllerClass);
+    }
+
+    Set<String> names() {
+        return names;
+    }
+
+    boolean contains(String commandName) {
+        return names.contains(commandName);
+    }
+
+    /**
+     * Returns true if command should be executed in background.
+     */
+    boolean isAsync(String commandName) {
+        return asyncCommands.contains(commandName);
+    }
+
+    /**
+     * Returns names of commands that declared dependency on specified property.
+     * Returned array must not be modified.
+     */
+    String[] dependentCommands(String propertyName) {
+        String[] commands = dependentCommands.get(propertyName);
+        return null == commands ? NO_COMMANDS : commands;
+    }
+
+    /**
+     * Returns names of commands without {@link Command#dependsOn()} declaration.
+     * Their availability can depend on any property.
+     * Returned array must not be modified.
+     */
+    String[] undeclaredCommands() {
+        return undeclaredCommands;
+    }
+
+    /**
+     * Invokes command method on controller instance.
+     * Exceptions thrown by command method are rethrown as is (checked ones are wrapped to RuntimeException).
+     */
+    void execute(Object controller, String commandName) {
+        if (dispatcher != null) {
+            dispatcher.execute(controller, commandName);
+            return;
+        }
+        MethodHandle handle = handles.get(commandName);
+        if (null == handle) throw new RuntimeException(String.format("Command %s not found", commandName));
+        try {
+            handle.invokeExact(controller);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static CommandTable scan(Class<?> controllerClass) {
+        CommandDispatcher<Object> dispatcher = loadDispatcher(controllerClass);
+        if (dispatcher != null) return new CommandTable(dispatcher);
+        return reflect(controllerClass);
+    }
+
+    /**
+     * Looks for dispatcher generated by swingmvc-processor.
+     * @return Dispatcher instance or null if controller class was compiled without processor
+     */
+    @SuppressWarnings("unchecked")
+    private static CommandDispatcher<Object> loadDispatcher(Class<?> controllerClass) {
+        Class<?> dispatcherClass;
+        try {
+            dispatcherClass = Class.forName(controllerClass.getName() + DISPATCHER_SUFFIX, true, controllerClass.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        if (!CommandDispatcher.class.isAssignableFrom(dispatcherClass)) return null;
+        try {
+            return (CommandDispatcher<Object>) dispatcherClass.getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Scans class and its superclasses (up to {@link Controller}) for methods annotated with {@link Command}.
+     * If subclass and superclass declare commands with the same name, subclass wins.
+     */
+    private static CommandTable reflect(Class<?> controllerClass) {
+        Map<String, MethodHandle> handles = new LinkedHashMap<String, MethodHandle>();
+        Map<String, String[]> dependsOn = new LinkedHashMap<String, String[]>();
+        Set<String> asyncCommands = new HashSet<String>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (Class<?> clazz = controllerClass; clazz != null && clazz != Controller.class; clazz = clazz.getSuperclass()) {
+            Map<String, MethodHandle> declared = new LinkedHashMap<String, MethodHandle>();
+            Map<String, String[]> declaredDependsOn = new HashMap<String, String[]>();
+            Set<String> declaredAsync = new HashSet<String>();
+            for (Method method : clazz.getDeclaredMethods()) {
+                Command attribute = method.getAnnotation(Command.class);
+                if (null == attribute) continue;
+                String name = attribute.value();
+                if ( null == name || name.isEmpty() )
+                    throw new RuntimeException( String.format( "commandName on method %s is null or empty", method.getName()) );
+                if (method.getParameterTypes().length != 0 || Modifier.isStatic(method.getModifiers()))
+                    throw new RuntimeException( String.format( "Command method %s should be non-static and have no parameters", method.getName()) );
+                if (declared.containsKey(name))
+                    throw new RuntimeException( String.format( "Command %s is declared twice in %s", name, clazz.getName()) );
+                method.setAccessible(true);
+                try {
+                    declared.put(name, lookup.unreflect(method).asType(EXECUTE_TYPE));
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                }
+                declaredDependsOn.put(name, attribute.dependsOn());
+                if (attribute.async()) declaredAsync.add(name);
+            }
+            for (Map.Entry<String, MethodHandle> entry : declared.entrySet()) {
+                if (!handles.containsKey(entry.getKey())) {
+                    handles.put(entry.getKey(), entry.getValue());
+                    dependsOn.put(entry.getKey(), declaredDependsOn.get(entry.getKey()));
+                    if (declaredAsync.contains(entry.getKey())) asyncCommands.add(entry.getKey());
+                }
+            }
+        }
+        return new CommandTable(handles, dependsOn, asyncCommands);
+    }
+}
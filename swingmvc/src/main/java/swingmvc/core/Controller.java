@@ -1,339 +1,935 @@
-package swingmvc.core;
-
-import binding.BindingGroup;
-import binding.IPropertyChangedListener;
-
-import javax.swing.*;
-import java.awt.*;
-import java.awt.event.*;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-/**
- * Base class for all UI controllers.
- * Connects view and model and manages them.
- * Supports commands and data change notifications.
- * @author elwood
- */
-public class Controller<TView, TViewModel extends ViewModel> implements IPropertyChangedListener {
-    protected TView view;
-    private TViewModel model;
-    private BindingGroup bindings;
-    
-    private boolean initialized = false;
-    
-    private Map<String, List<Pair<JButton, ActionListener>>> buttonsBound = new HashMap<String, List<Pair<JButton, ActionListener>>>();
-    private Map<String, MethodCommand> commands = new HashMap<String, MethodCommand> () ;
-    
-    /**
-     * Called internally from modules.
-     */
-    void initialize(TView view) {
-        this.view = view;
-        initializeCommands();
-        initializeBindings();
-        subscribeToClose();
-        initialized = true;
-        onInitialized();
-    }
-
-    private class CloseListener extends WindowAdapter {
-        private boolean unloaded = false;
-        // WINDOW_CLOSED event is raised only if Window's default close operation is set to DISPOSE_ON_CLOSE
-        public void windowClosed( WindowEvent e ) {
-            // this event may be raised twice because of bug in SWT (fixed in java 8 last versions only)
-            // so we use flag to avoid duplicate call of unload event
-            // for additional information see http://www.mail-archive.com/swing-dev@openjdk.java.net/msg02625.html
-            if (unloaded) return;
-            try {
-                e.getWindow().removeWindowListener( this );
-                onUnload();
-            } finally {
-                unloaded = true;
-            }
-        }
-    }
-
-    /**
-     * Called when view (if it is a Window) or its root parent (Window) is closed.
-     * Note that windows with default close operation = DO_NOTHING_ON_CLOSE, HIDE_ON_CLOSE and EXIT_ON_CLOSE will not
-     * raise WindowClosed event, and unload method won't be called.
-     */
-    protected void onUnload() {
-    }
-
-    private void subscribeToClose() {
-        final CloseListener closeListener = new CloseListener();
-        if (view instanceof Window ) {
-            ((Window) view ).addWindowListener(closeListener );
-        } else {
-            // setup the hierarchy listener that will wait the moment of attaching view to Window
-            ((JComponent) view).addHierarchyListener( new HierarchyListener() {
-                public void hierarchyChanged( HierarchyEvent e ) {
-                    //
-                    if (e.getChangeFlags() == HierarchyEvent.PARENT_CHANGED) {
-                        Window root;
-                        if (e.getChangedParent() instanceof Window) {
-                            root = (Window) e.getChangedParent();
-                        } else {
-                            root = SwingUtilities.windowForComponent(e.getChangedParent());
-                        }
-                        if (null != root) {
-                            root.addWindowListener(closeListener);
-                            e.getComponent().removeHierarchyListener(this);
-                        }
-                    }
-                }
-            } );
-        }
-    }
-
-    private void initializeBindings() {
-        bindings = new BindingGroup(  );
-        setupBindings( bindings );
-        if (model != null) {
-            bindings.setSource( model );
-            bindings.bind();
-        }
-    }
-    
-    /**
-     * Called when view is created and controller was initialized
-     * (view is available as field, commands are loaded).
-     */
-    protected void onInitialized() {
-    }
-
-    /**
-     * Allows set data binding rules to view model instance.
-     * If view model instance will change, Controller will rebind it automatically.
-     */
-    protected void setupBindings( BindingGroup bindings) {
-    }
-
-    /**
-     * Called when someone uses {@link #setModel(ViewModel)} method.
-     * @param oldModel Old model instance or null if there was no model
-     * @param model New model instance
-     */
-    protected void onModelChanged( TViewModel oldModel, TViewModel model) {
-    }
-    
-    /**
-     * Called when model signals about property change.
-     * @param propertyName Name of affected property
-     */
-    protected void onModelPropertyChanged(String propertyName) {
-    }
-    
-    /**
-     * Determines command availability status.
-     * Called before command executing and
-     * when someone calls {@link #refreshCanExecuteCommand(String)}
-     * 
-     * @param commandName Name of command to check
-     * @return true if command can be executed, otherwise false
-     */
-    protected boolean canExecuteCommand( String commandName ) {
-        // return false by default
-        return false;
-    }
-    
-    /**
-     * Updates all commands availability status.
-     * Automatically sets buttons enabled property for buttons bound to commands.
-     */
-    public void refreshCanExecuteCommands() {
-        if (!initialized) throw new IllegalArgumentException( "Controller is not initialized yet" );
-        for (String commandName : commands.keySet() ) {
-            refreshCanExecuteCommand(commandName);
-        }
-    }
-    
-    /**
-     * Updates command availability status.
-     * Automatically sets buttons enabled property for buttons bound to command.
-     * @param commandName Name of command
-     */
-    public void refreshCanExecuteCommand( String commandName ) {
-        if (!initialized) throw new IllegalArgumentException( "Controller is not initialized yet" );
-        if (buttonsBound.containsKey(commandName)) {
-            List<Pair<JButton, ActionListener>> buttons = buttonsBound.get(commandName);
-            boolean canExecute = canExecuteCommand(commandName);
-            for (Pair<JButton, ActionListener> buttonPair : buttons)
-                buttonPair.first.setEnabled(canExecute);
-        }
-    }
-    
-    /**
-     * Returns view model instance linked to.
-     */
-    public TViewModel getModel() {
-        return model;
-    }
-
-    /**
-     * Replaces the current view model instance by the specified one.
-     * Calls {@link #onModelChanged(ViewModel, ViewModel)} method after operation.
-     * Automatically calls {@link #refreshCanExecuteCommands()} also.
-     * 
-     * @param model Reference to new view model instance.
-     */
-    public void setModel( TViewModel model) {
-        if (null == model) throw new IllegalArgumentException("model is null");
-        
-        if (this.model != model) {
-            TViewModel oldModel = this.model;
-            
-            if (oldModel != null) {
-                oldModel.removePropertyChangedListener(this);
-                if (initialized) {
-                    bindings.unbind();
-                }
-            }
-            this.model = model;
-            model.addPropertyChangedListener(this);
-            if (initialized) {
-                bindings.setSource( model );
-                bindings.bind();
-            }
-            
-            onModelChanged(oldModel, model);
-
-            if (initialized) {
-                refreshCanExecuteCommands();
-            }
-        }
-    }
-
-    /**
-     * Connects the button to specified command.
-     * After this command canExecute will be synchronized with button's enabled property.
-     * You can bind several buttons to one command.
-     * @param button 
-     * @param commandName 
-     */
-    protected void bindButtonToCommand( JButton button, final String commandName ) {
-        if (!initialized) throw new IllegalArgumentException( "Commands are not initialized yet" );
-        if (!commands.containsKey(commandName)) throw new RuntimeException( String.format( "Command %s not found", commandName ));
-        final ActionListener actionListener = new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                getCommandByName(commandName).execute();
-            }
-        };
-        button.addActionListener(actionListener);
-        //
-        if (!buttonsBound.containsKey(commandName))
-            buttonsBound.put(commandName, new ArrayList<Pair<JButton, ActionListener>>());
-        buttonsBound.get(commandName).add(new Pair<JButton, ActionListener>(button, actionListener));
-        //
-        refreshCanExecuteCommand(commandName);
-    }
-    
-    /**
-     * Removes connection between command and button.
-     * @param button
-     * @param commandName 
-     */
-    protected void unbindButtonFromCommand( JButton button, String commandName ) {
-        if (!initialized) throw new IllegalArgumentException( "Commands are not initialized yet" );
-        List<Pair<JButton, ActionListener>> buttons = buttonsBound.get(commandName);
-        if (null == buttons) throw new RuntimeException( String.format("Command %s is not bound to any button", commandName));
-        Pair<JButton, ActionListener> pairToDelete = null;
-        for (Pair<JButton, ActionListener> buttonPair: buttons) {
-            if (buttonPair.first == button) {
-                pairToDelete = buttonPair;
-                break;
-            }
-        }
-        if (null == pairToDelete) throw new RuntimeException(String.format("Command %s is not bound to specified button", commandName));
-        button.removeActionListener(pairToDelete.second);
-        buttons.remove(pairToDelete);
-        if (buttons.isEmpty())
-            buttonsBound.remove(commandName);
-    }
-    
-    /**
-     * Returns command for specified name. Can be used from another controllers.
-     * @throws IllegalArgumentException If commandName is null or empty
-     * @throws RuntimeException If specified command not found
-     */
-    public ICommand getCommandByName( String commandName ) {
-        if (!initialized) throw new IllegalArgumentException( "Commands are not initialized yet" );
-        if ( null == commandName || commandName.isEmpty()) throw new IllegalArgumentException( "commandName is null or empty");
-        ICommand cmd = commands.get( commandName );
-        if ( null == cmd ) throw new RuntimeException( String.format( "Command %s not found", commandName) );
-        return cmd;
-    }
-
-    @Override
-    public void propertyChanged(String propertyName) {
-        onModelPropertyChanged(propertyName );
-    }
-    
-    private static class Pair<F, S> {
-        F first;
-        S second;
-
-        Pair(F first, S second) {
-            this.first = first;
-            this.second = second;
-        }
-                
-    }
-    
-    /**
-     * Scans current class for methods annotated with {@link Command} attribute
-     * and converts them to ICommand instances.
-     */
-    private void initializeCommands() {
-        Method[] methods = this.getClass().getDeclaredMethods();
-        for ( Method method : methods) {
-            Command attribute = method.getAnnotation(Command.class);
-            if (null != attribute) {
-                String name = attribute.value();
-                if ( null == name || name.isEmpty() )
-                    throw new RuntimeException( String.format( "commandName on method %s is null or empty", method.getName()) );
-                method.setAccessible(true);
-                commands.put(name, new MethodCommand(name, method));
-            }
-        }
-    }
-    
-    private class MethodCommand implements ICommand {
-
-        String name;
-        Method method;
-        
-        public MethodCommand( String name, Method method) {
-            this.name = name;
-            this.method = method;
-        }
-        
-        @Override
-        public boolean canExecute() {
-            return Controller.this.canExecuteCommand(name);
-        }
-
-        @Override
-        public void execute() {
-            if ( canExecute() ) {
-                try {                    
-                    method.invoke(Controller.this);
-                } catch (IllegalAccessException e) {
-                    throw new RuntimeException (e);
-                } catch (IllegalArgumentException e) {
-                    throw new RuntimeException (e);
-                } catch (InvocationTargetException e) {
-                    throw new RuntimeException (e);
-                }
-            }
-        }
-        
-    }
-}
+package swingmvc.core;
+
+import binding.BindingGroup;
+import binding.IPropertyChangedListener;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Base class for all UI controllers.
+ * Connects view and model and manages them.
+ * Supports commands and data change notifications.
+ * @author elwood
+ */
+public class Controller<TView, TViewModel extends ViewModel> implements IPropertyChangedListener {
+    protected TView view;
+    private TViewModel model;
+    private BindingGroup bindings;
+    
+    private boolean initialized = false;
+    private boolean attached = true;
+    private boolean headless = false;
+    private boolean unloaded = false;
+    private boolean deferredRefresh = false;
+    // accessed on EDT only
+    private Set<String> dirtyCommands;
+    private boolean refreshScheduled = false;
+    private Window watchedWindow;
+    
+    private Map<String, List<Pair<JButton, ActionListener>>> buttonsBound = new HashMap<String, List<Pair<JButton, ActionListener>>>();
+    private CommandTable commandTable;
+    private Map<String, MethodCommand> commands = new HashMap<String, MethodCommand> () ;
+    private Map<String, ICommand> registeredCommands;
+    private final ControllerMetrics metrics = Metrics.ENABLED ? Metrics.controller( getClass() ) : null;
+    private Reference<?> metricsHandle;
+    // called when model is replaced, see setModelChangedHook
+    private Runnable modelChangedHook;
+    
+    /**
+     * Called internally from modules.
+     */
+    void initialize(TView view) {
+        initialize(view, null);
+    }
+
+    /**
+     * Called internally from modules.
+     * @param moduleClass Class of module used as key in {@link ModuleProfiler}, or null to use controller class
+     */
+    void initialize(TView view, Class<?> moduleClass) {
+        this.view = view;
+        boolean profile = ModuleProfiler.isEnabled();
+        Class<?> profileKey = null != moduleClass ? moduleClass : getClass();
+        long start = profile ? System.nanoTime() : 0;
+        initializeCommands();
+        if (profile) start = ModuleProfiler.record(profileKey, ModuleProfiler.Phase.INITIALIZE_COMMANDS, start);
+        initializeBindings();
+        if (profile) start = ModuleProfiler.record(profileKey, ModuleProfiler.Phase.INITIALIZE_BINDINGS, start);
+        if (!headless) {
+            subscribeToClose();
+            subscribeToLifecycle();
+        }
+        deferredRefresh = !headless && isDeferredCommandRefresh();
+        initialized = true;
+        if (Metrics.ENABLED) metricsHandle = metrics.controllerInitialized(this);
+        if (profile) start = System.nanoTime();
+        int watchdogToken = EdtWatchdog.enter(getClass(), EdtWatchdog.Kind.INITIALIZED, null);
+        try {
+            onInitialized();
+        } finally {
+            EdtWatchdog.exit(watchdogToken);
+        }
+        if (profile) ModuleProfiler.record(profileKey, ModuleProfiler.Phase.ON_INITIALIZED, start);
+    }
+
+    /**
+     * Initializes controller in headless mode, without module and AWT realization.
+     * Intended for tests and benchmarks that drive controller logic without display.
+     * In this mode no listeners are installed on view (so view can be stub or null, if controller does not use it),
+     * model notifications and completions of asynchronous commands are handled on the calling thread
+     * instead of being posted to the Event Dispatch Thread, and commands are refreshed immediately.
+     * Commands, {@link #canExecuteCommand(String)}, bindings and property notifications work as usual.
+     * @param view Stub view or null
+     */
+    public void initializeHeadless( TView view ) {
+        if (initialized) throw new IllegalStateException( "Controller is already initialized" );
+        headless = true;
+        initialize( view, null );
+    }
+
+    /**
+     * Returns true if controller was initialized by {@link #initializeHeadless(Object)}.
+     */
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    private class CloseListener extends WindowAdapter {
+        private boolean unloaded = false;
+        // WINDOW_CLOSED event is raised only if Window's default close operation is set to DISPOSE_ON_CLOSE
+        public void windowClosed( WindowEvent e ) {
+            // this event may be raised twice because of bug in SWT (fixed in java 8 last versions only)
+            // so we use flag to avoid duplicate call of unload event
+            // for additional information see http://www.mail-archive.com/swing-dev@openjdk.java.net/msg02625.html
+            if (unloaded) return;
+            try {
+                e.getWindow().removeWindowListener( this );
+                closeWindow = null;
+                unload();
+            } finally {
+                unloaded = true;
+            }
+        }
+    }
+
+    /**
+     * Called when view (if it is a Window) or its root parent (Window) is closed.
+     * Note that windows with default close operation = DO_NOTHING_ON_CLOSE, HIDE_ON_CLOSE and EXIT_ON_CLOSE will not
+     * raise WindowClosed event, and unload method won't be called.
+     * Use {@link #onDetached()} to release resources when view is hidden or removed from hierarchy.
+     */
+    protected void onUnload() {
+    }
+
+    /**
+     * Unloads controller once. Also called by {@link DialogModulePool} for disposed dialogs that were never shown.
+     */
+    void unload() {
+        if (unloaded) return;
+        unloaded = true;
+        if (Metrics.ENABLED) metrics.controllerUnloaded(metricsHandle);
+        cancelAsyncCommands();
+        onUnload();
+    }
+
+    private final CloseListener closeListener = new CloseListener();
+    // window which closing unloads controller, null until view is added to window
+    private Window closeWindow;
+
+    // waits the moment of attaching view to Window
+    private final HierarchyListener closeSubscriber = new HierarchyListener() {
+        public void hierarchyChanged( HierarchyEvent e ) {
+            //
+            if (e.getChangeFlags() == HierarchyEvent.PARENT_CHANGED) {
+                Window root;
+                if (e.getChangedParent() instanceof Window) {
+                    root = (Window) e.getChangedParent();
+                } else {
+                    root = SwingUtilities.windowForComponent(e.getChangedParent());
+                }
+                if (null != root) {
+                    closeWindow = root;
+                    root.addWindowListener(closeListener);
+                    e.getComponent().removeHierarchyListener(this);
+                }
+            }
+        }
+    };
+
+    private void subscribeToClose() {
+        if (view instanceof Window ) {
+            closeWindow = (Window) view;
+            closeWindow.addWindowListener(closeListener );
+        } else {
+            ((JComponent) view).addHierarchyListener( closeSubscriber );
+        }
+    }
+
+    /**
+     * Tracks displayability of view and visibility of its window to detach controller from view
+     * when view is removed from hierarchy, disposed or hidden, and attach it back when view is shown again.
+     */
+    private class LifecycleListener extends ComponentAdapter implements HierarchyListener {
+        @Override
+        public void hierarchyChanged( HierarchyEvent e ) {
+            if ((e.getChangeFlags() & HierarchyEvent.DISPLAYABILITY_CHANGED) == 0) return;
+            if (e.getComponent().isDisplayable()) {
+                watchWindow();
+                attach();
+            } else {
+                detach();
+            }
+        }
+
+        @Override
+        public void componentHidden( ComponentEvent e ) {
+            detach();
+        }
+
+        @Override
+        public void componentShown( ComponentEvent e ) {
+            if (((Component) view).isDisplayable()) attach();
+        }
+    }
+
+    private final LifecycleListener lifecycleListener = new LifecycleListener();
+
+    private void subscribeToLifecycle() {
+        if (!(view instanceof Component)) return;
+        Component component = (Component) view;
+        component.addHierarchyListener( lifecycleListener );
+        if (component.isDisplayable()) watchWindow();
+    }
+
+    /**
+     * Subscribes to visibility of window that contains view now.
+     */
+    private void watchWindow() {
+        Window window = view instanceof Window ? (Window) view : SwingUtilities.getWindowAncestor( (Component) view );
+        if (window == watchedWindow) return;
+        if (null != watchedWindow) watchedWindow.removeComponentListener( lifecycleListener );
+        watchedWindow = window;
+        if (null != window) window.addComponentListener( lifecycleListener );
+    }
+
+    /**
+     * Removes listeners from window that view was removed from, so the window does not keep controller
+     * and view reachable. Listeners are added again when view is added to window.
+     */
+    private void releaseWindow() {
+        if (null != watchedWindow) {
+            watchedWindow.removeComponentListener( lifecycleListener );
+            watchedWindow = null;
+        }
+        if (null != closeWindow) {
+            closeWindow.removeWindowListener( closeListener );
+            closeWindow = null;
+            ((JComponent) view).addHierarchyListener( closeSubscriber );
+        }
+    }
+
+    /**
+     * Releases bindings, model subscription and listeners of bound buttons.
+     * Called when view is removed from hierarchy, disposed or hidden.
+     */
+    void detach() {
+        if (!attached || !initialized) return;
+        attached = false;
+        if (Metrics.ENABLED) metrics.controllerDetached(metricsHandle);
+        if (null != model) {
+            model.removePropertyChangedListener( this );
+            bindings.unbind();
+        }
+        for (List<Pair<JButton, ActionListener>> buttons : buttonsBound.values()) {
+            for (Pair<JButton, ActionListener> buttonPair : buttons) {
+                buttonPair.first.removeActionListener( buttonPair.second );
+            }
+        }
+        // hidden view stays in its window and should be attached when window is shown again
+        if (!headless && view instanceof JComponent && null == SwingUtilities.getWindowAncestor( (Component) view )) {
+            releaseWindow();
+        }
+        onDetached();
+    }
+
+    /**
+     * Restores bindings, model subscription and listeners of bound buttons released by {@link #detach()}.
+     */
+    void attach() {
+        if (attached || !initialized) return;
+        attached = true;
+        if (Metrics.ENABLED) metrics.controllerAttached(metricsHandle);
+        if (null != model) {
+            model.addWeakPropertyChangedListener( this );
+            bindModel();
+        }
+        for (List<Pair<JButton, ActionListener>> buttons : buttonsBound.values()) {
+            for (Pair<JButton, ActionListener> buttonPair : buttons) {
+                buttonPair.first.addActionListener( buttonPair.second );
+            }
+        }
+        refreshCanExecuteCommands();
+        onAttached();
+    }
+
+    /**
+     * Returns false if controller is detached from view because view has been removed from hierarchy,
+     * disposed or hidden. Detached controller has no bindings and does not listen to model and buttons.
+     */
+    public boolean isAttached() {
+        return attached;
+    }
+
+    /**
+     * Called when view is removed from hierarchy, disposed or hidden (including windows with HIDE_ON_CLOSE),
+     * after bindings, model subscription and button listeners are released.
+     */
+    protected void onDetached() {
+    }
+
+    /**
+     * Called when detached view is shown again, after bindings, model subscription and button listeners are restored
+     * and commands are refreshed.
+     */
+    protected void onAttached() {
+    }
+
+    private void initializeBindings() {
+        bindings = new BindingGroup(  );
+        setupBindings( bindings );
+        if (model != null) {
+            bindModel();
+        }
+    }
+
+    private void bindModel() {
+        bindings.setSource( model );
+        bindings.bind();
+    }
+    
+    /**
+     * Called when view is created and controller was initialized
+     * (view is available as field, commands are loaded).
+     */
+    protected void onInitialized() {
+    }
+
+    /**
+     * Allows set data binding rules to view model instance.
+     * If view model instance will change, Controller will rebind it automatically.
+     */
+    protected void setupBindings( BindingGroup bindings) {
+    }
+
+    /**
+     * Called when someone uses {@link #setModel(ViewModel)} method.
+     * @param oldModel Old model instance or null if there was no model
+     * @param model New model instance
+     */
+    protected void onModelChanged( TViewModel oldModel, TViewModel model) {
+    }
+    
+    /**
+     * Return true to refresh only affected commands when model is replaced by another instance of the same class
+     * (for example, in master-detail views). Old and new models are compared by cached accessors of their
+     * read-write properties, and only bound commands that depend on changed properties, have no
+     * {@link Command#dependsOn()} declaration or are registered by {@link #registerCommand(String, ICommand)}
+     * are refreshed. Models are compared only if some bound command declares its dependencies.
+     * Bindings are rebuilt on every model change as usual. Called on every model change, default is false.
+     */
+    protected boolean isAffectedCommandRefresh() {
+        return false;
+    }
+
+    /**
+     * Called when model signals about property change.
+     * Commands that declare dependency on this property (see {@link Command#dependsOn()})
+     * are refreshed automatically after this method.
+     * @param propertyName Name of affected property
+     */
+    protected void onModelPropertyChanged(String propertyName) {
+    }
+
+    /**
+     * Called after {@link #onModelPropertyChanged(String)} if model class has generated property keys
+     * (see {@link ObservableProperty}), so handler can compare keys or switch on {@link PropertyKey#getId()}
+     * instead of comparing names.
+     * @param key Key of affected property
+     */
+    protected void onModelPropertyChanged(PropertyKey<?, ?> key) {
+    }
+    
+    /**
+     * Determines command availability status.
+     * Called before command executing and
+     * when someone calls {@link #refreshCanExecuteCommand(String)}
+     * 
+     * @param commandName Name of command to check
+     * @return true if command can be executed, otherwise false
+     */
+    protected boolean canExecuteCommand( String commandName ) {
+        // return false by default
+        return false;
+    }
+    
+    /**
+     * Called on the Event Dispatch Thread when asynchronous command has been completed successfully.
+     * @param commandName Name of command
+     */
+    protected void onCommandCompleted( String commandName ) {
+    }
+
+    /**
+     * Called on the Event Dispatch Thread when asynchronous command has thrown an exception.
+     * Default implementation rethrows it on EDT.
+     * @param commandName Name of command
+     * @param error Exception thrown by command method
+     */
+    protected void onCommandFailed( String commandName, Throwable error ) {
+        if (error instanceof RuntimeException) throw (RuntimeException) error;
+        if (error instanceof Error) throw (Error) error;
+        throw new RuntimeException( error );
+    }
+
+    /**
+     * Called on the Event Dispatch Thread when asynchronous command has been cancelled.
+     * @param commandName Name of command
+     */
+    protected void onCommandCancelled( String commandName ) {
+    }
+
+    /**
+     * Returns executor used to run asynchronous commands of this controller.
+     * By default returns executor set by {@link #setDefaultAsyncExecutor(Executor)},
+     * or virtual-thread-per-task executor (if supported by JVM) or cached pool of daemon threads.
+     */
+    protected Executor asyncExecutor() {
+        return CommandExecutors.getDefault();
+    }
+
+    /**
+     * Sets executor used to run asynchronous commands of all controllers.
+     * @param executor Executor or null to use the built-in one
+     */
+    public static void setDefaultAsyncExecutor( Executor executor ) {
+        CommandExecutors.setDefault( executor );
+    }
+
+    /**
+     * Cancels all running asynchronous commands of this controller.
+     * Called automatically when controller is unloaded.
+     */
+    protected void cancelAsyncCommands() {
+        for (MethodCommand command : commands.values()) {
+            if (command instanceof IAsyncCommand) {
+                ((IAsyncCommand) command).cancel();
+            }
+        }
+    }
+    
+    /**
+     * Updates all commands availability status.
+     * Automatically sets buttons enabled property for buttons bound to commands.
+     * Only commands bound to buttons are checked.
+     */
+    public void refreshCanExecuteCommands() {
+        if (!initialized) throw new IllegalArgumentException( "Controller is not initialized yet" );
+        for (String commandName : buttonsBound.keySet() ) {
+            refreshCanExecuteCommand(commandName);
+        }
+    }
+    
+    /**
+     * Updates command availability status.
+     * Automatically sets buttons enabled property for buttons bound to command.
+     * In deferred mode (see {@link #isDeferredCommandRefresh()}) command is evaluated later in the same EDT cycle.
+     * @param commandName Name of command
+     */
+    public void refreshCanExecuteCommand( String commandName ) {
+        if (!initialized) throw new IllegalArgumentException( "Controller is not initialized yet" );
+        if (deferredRefresh) {
+            if (!buttonsBound.containsKey(commandName)) return;
+            if (null == dirtyCommands) dirtyCommands = new LinkedHashSet<String>();
+            dirtyCommands.add(commandName);
+            if (!refreshScheduled) {
+                refreshScheduled = true;
+                SwingUtilities.invokeLater(deferredRefreshPass);
+            }
+            return;
+        }
+        refreshCommandNow(commandName);
+    }
+
+    /**
+     * Evaluates all commands marked as dirty in deferred mode.
+     */
+    private final Runnable deferredRefreshPass = new Runnable() {
+        @Override
+        public void run() {
+            refreshScheduled = false;
+            String[] commandNames = dirtyCommands.toArray(new String[dirtyCommands.size()]);
+            dirtyCommands.clear();
+            for (String commandName : commandNames) {
+                refreshCommandNow(commandName);
+            }
+        }
+    };
+
+    /**
+     * Return true to defer command refresh: {@link #refreshCanExecuteCommand(String)} only marks command
+     * as dirty, and all dirty commands are evaluated once in single pass posted to the end of current
+     * Event Dispatch Thread cycle. Reduces work when several properties change at once (for example,
+     * on every keystroke with UpdateSourceTrigger.PropertyChanged). Commands are always checked
+     * synchronously before execution. Called once when controller is initialized, default is false.
+     */
+    protected boolean isDeferredCommandRefresh() {
+        return false;
+    }
+
+    private void refreshCommandNow( String commandName ) {
+        List<Pair<JButton, ActionListener>> buttons = buttonsBound.get(commandName);
+        if (null != buttons) {
+            boolean canExecute = getCommandByName(commandName).canExecute();
+            for (Pair<JButton, ActionListener> buttonPair : buttons) {
+                if (buttonPair.first.isEnabled() != canExecute) buttonPair.first.setEnabled(canExecute);
+            }
+        }
+    }
+
+    /**
+     * Returns view model instance linked to.
+     */
+    public TViewModel getModel() {
+        return model;
+    }
+
+    /**
+     * Replaces the current view model instance by the specified one.
+     * Calls {@link #onModelChanged(ViewModel, ViewModel)} method after operation.
+     * Automatically calls {@link #refreshCanExecuteCommands()} also
+     * (or refreshes only affected commands, see {@link #isAffectedCommandRefresh()}).
+     * 
+     * @param model Reference to new view model instance.
+     */
+    public void setModel( TViewModel model) {
+        if (null == model) throw new IllegalArgumentException("model is null");
+        
+        if (this.model != model) {
+            TViewModel oldModel = this.model;
+            
+            String[] changedProperties = null;
+            if (oldModel != null) {
+                oldModel.removePropertyChangedListener(this);
+            }
+            this.model = model;
+            if (null != modelChangedHook) modelChangedHook.run();
+            ListenerLeakDetector.track(model);
+            // detached controller subscribes to model when it is attached again
+            boolean live = initialized && attached;
+            if (attached) {
+                // model can live longer than view, so it should not keep controller (and view) reachable
+                model.addWeakPropertyChangedListener(this);
+            }
+            if (live) {
+                if (oldModel != null) {
+                    if (oldModel.getClass() == model.getClass() && isAffectedCommandRefresh() && hasDeclaredBoundCommands()) {
+                        changedProperties = changedProperties( oldModel, model );
+                    }
+                    bindings.unbind();
+                }
+                bindModel();
+            }
+            
+            int watchdogToken = EdtWatchdog.enter(getClass(), EdtWatchdog.Kind.MODEL_CHANGED, null);
+            try {
+                onModelChanged(oldModel, model);
+            } finally {
+                EdtWatchdog.exit(watchdogToken);
+            }
+
+            if (live) {
+                if (null == changedProperties) {
+                    refreshCanExecuteCommands();
+                } else {
+                    refreshAffectedCommands( changedProperties );
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns names of read-write properties which values differ in models of the same class.
+     */
+    private static String[] changedProperties( ViewModel oldModel, ViewModel model ) {
+        ViewModelAccessors accessors = model.getAccessors();
+        List<String> changed = new ArrayList<String>();
+        for (int i = 0; i < accessors.size(); i++) {
+            Object oldValue = accessors.get( oldModel, i );
+            Object value = accessors.get( model, i );
+            if (oldValue == null ? value != null : !oldValue.equals( value )) changed.add( accessors.name( i ) );
+        }
+        return changed.toArray( new String[changed.size()] );
+    }
+
+    /**
+     * Sets hook called when model is replaced, before controller subscribes to it and binds it.
+     * Used by {@link SessionStore} to restore state of models set after registration.
+     */
+    void setModelChangedHook( Runnable hook ) {
+        this.modelChangedHook = hook;
+    }
+
+    /**
+     * Refreshes commands that depend on specified properties and commands without declared dependencies.
+     */
+    private void refreshAffectedCommands( String[] changedProperties ) {
+        Set<String> affected = new HashSet<String>();
+        for (String propertyName : changedProperties) {
+            for (String commandName : commandTable.dependentCommands( propertyName )) affected.add( commandName );
+        }
+        for (String commandName : buttonsBound.keySet()) {
+            if (affected.contains( commandName ) || !isDeclared( commandName )) refreshCanExecuteCommand( commandName );
+        }
+    }
+
+    /**
+     * Returns true if some bound command declares its dependencies, so comparing models can save its refresh.
+     */
+    private boolean hasDeclaredBoundCommands() {
+        for (String commandName : buttonsBound.keySet()) {
+            if (isDeclared( commandName )) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if availability of command depends only on properties listed in {@link Command#dependsOn()}.
+     */
+    private boolean isDeclared( String commandName ) {
+        if (null != registeredCommands && registeredCommands.containsKey( commandName )) return false;
+        if (!commandTable.contains( commandName )) return false;
+        for (String undeclared : commandTable.undeclaredCommands()) {
+            if (undeclared.equals( commandName )) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Connects the button to specified command.
+     * After this command canExecute will be synchronized with button's enabled property.
+     * You can bind several buttons to one command.
+     * @param button 
+     * @param commandName 
+     */
+    protected void bindButtonToCommand( JButton button, final String commandName ) {
+        if (!initialized) throw new IllegalArgumentException( "Commands are not initialized yet" );
+        if (!hasCommand(commandName)) throw new RuntimeException( String.format( "Command %s not found", commandName ));
+        final ActionListener actionListener = new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                getCommandByName(commandName).execute();
+            }
+        };
+        if (attached) button.addActionListener(actionListener);
+        //
+        if (!buttonsBound.containsKey(commandName))
+            buttonsBound.put(commandName, new ArrayList<Pair<JButton, ActionListener>>());
+        buttonsBound.get(commandName).add(new Pair<JButton, ActionListener>(button, actionListener));
+        //
+        refreshCommandNow(commandName);
+    }
+    
+    /**
+     * Removes connection between command and button.
+     * @param button
+     * @param commandName 
+     */
+    protected void unbindButtonFromCommand( JButton button, String commandName ) {
+        if (!initialized) throw new IllegalArgumentException( "Commands are not initialized yet" );
+        List<Pair<JButton, ActionListener>> buttons = buttonsBound.get(commandName);
+        if (null == buttons) throw new RuntimeException( String.format("Command %s is not bound to any button", commandName));
+        Pair<JButton, ActionListener> pairToDelete = null;
+        for (Pair<JButton, ActionListener> buttonPair: buttons) {
+            if (buttonPair.first == button) {
+                pairToDelete = buttonPair;
+                break;
+            }
+        }
+        if (null == pairToDelete) throw new RuntimeException(String.format("Command %s is not bound to specified button", commandName));
+        button.removeActionListener(pairToDelete.second);
+        buttons.remove(pairToDelete);
+        if (buttons.isEmpty())
+            buttonsBound.remove(commandName);
+    }
+    
+    /**
+     * Returns command for specified name. Can be used from another controllers.
+     * Commands declared with {@link Command#async()} are returned as {@link IAsyncCommand}.
+     * @throws IllegalArgumentException If commandName is null or empty
+     * @throws RuntimeException If specified command not found
+     */
+    public ICommand getCommandByName( String commandName ) {
+        if (!initialized) throw new IllegalArgumentException( "Commands are not initialized yet" );
+        if ( null == commandName || commandName.isEmpty()) throw new IllegalArgumentException( "commandName is null or empty");
+        if ( null != registeredCommands ) {
+            ICommand registered = registeredCommands.get( commandName );
+            if ( null != registered ) return registered;
+        }
+        MethodCommand cmd = commands.get( commandName );
+        if ( null == cmd ) {
+            if ( !commandTable.contains( commandName ) ) throw new RuntimeException( String.format( "Command %s not found", commandName) );
+            cmd = commandTable.isAsync( commandName ) ? new AsyncMethodCommand( commandName ) : new MethodCommand( commandName );
+            commands.put( commandName, cmd );
+        }
+        return cmd;
+    }
+
+    /**
+     * Registers ready-made command object (for example, {@link UndoJournal#undoCommand()}) under specified name,
+     * so it can be bound to buttons and returned by {@link #getCommandByName(String)} as methods marked with {@link Command}.
+     * Availability of registered command is not tracked by properties, call {@link #refreshCanExecuteCommand(String)} when it changes.
+     * @throws RuntimeException If command with this name is already declared or registered
+     */
+    protected void registerCommand( String commandName, ICommand command ) {
+        if (!initialized) throw new IllegalArgumentException( "Commands are not initialized yet" );
+        if ( null == commandName || commandName.isEmpty()) throw new IllegalArgumentException( "commandName is null or empty");
+        if ( null == command ) throw new IllegalArgumentException( "command is null" );
+        if ( hasCommand( commandName ) ) throw new RuntimeException( String.format( "Command %s already exists", commandName) );
+        if ( null == registeredCommands ) registeredCommands = new HashMap<String, ICommand>();
+        registeredCommands.put( commandName, command );
+    }
+
+    private boolean hasCommand( String commandName ) {
+        return commandTable.contains( commandName ) || null != registeredCommands && registeredCommands.containsKey( commandName );
+    }
+
+    /**
+     * Called by model. Controller callbacks are always called on the Event Dispatch Thread,
+     * so notifications raised from other threads are posted to EDT (except headless mode, see {@link #initializeHeadless(Object)}).
+     */
+    @Override
+    public void propertyChanged(final String propertyName) {
+        if (!headless && !SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    handlePropertyChanged(propertyName);
+                }
+            });
+            return;
+        }
+        handlePropertyChanged(propertyName);
+    }
+
+    private void handlePropertyChanged(String propertyName) {
+        int watchdogToken = EdtWatchdog.enter(getClass(), EdtWatchdog.Kind.PROPERTY_CHANGED, propertyName);
+        try {
+            handlePropertyChangedCore(propertyName);
+        } finally {
+            EdtWatchdog.exit(watchdogToken);
+        }
+    }
+
+    private void handlePropertyChangedCore(String propertyName) {
+        if (Metrics.ENABLED) metrics.propertyChanged(propertyName);
+        onModelPropertyChanged(propertyName );
+        if (null != propertyName && null != model) {
+            PropertyKey<?, ?> key = ViewModelAccessors.forClass(model.getClass()).key(propertyName);
+            if (null != key) onModelPropertyChanged(key);
+        }
+        if (!initialized) return;
+        if (null == propertyName) {
+            // unknown set of properties changed
+            refreshCanExecuteCommands();
+            return;
+        }
+        String[] dependentCommands = commandTable.dependentCommands(propertyName);
+        for (int i = 0; i < dependentCommands.length; i++) {
+            refreshCanExecuteCommand(dependentCommands[i]);
+        }
+    }
+    
+    private static class Pair<F, S> {
+        F first;
+        S second;
+
+        Pair(F first, S second) {
+            this.first = first;
+            this.second = second;
+        }
+                
+    }
+    
+    /**
+     * Loads table of methods annotated with {@link Command} attribute.
+     * Table is built once per controller class (including inherited commands) and shared by all instances,
+     * ICommand wrappers are created lazily in {@link #getCommandByName(String)}.
+     */
+    private void initializeCommands() {
+        commandTable = CommandTable.forClass( this.getClass() );
+    }
+    
+    /**
+     * Calls command method, measuring execution time if metrics are enabled.
+     */
+    private void invokeCommand( String commandName ) {
+        int watchdogToken = EdtWatchdog.enter(getClass(), EdtWatchdog.Kind.COMMAND, commandName);
+        try {
+            invokeCommandCore(commandName);
+        } finally {
+            EdtWatchdog.exit(watchdogToken);
+        }
+    }
+
+    private void invokeCommandCore( String commandName ) {
+        if (!Metrics.ENABLED) {
+            commandTable.execute(this, commandName);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            commandTable.execute(this, commandName);
+        } finally {
+            metrics.commandExecuted(commandName, System.nanoTime() - start);
+        }
+    }
+    
+    private class MethodCommand implements ICommand {
+
+        String name;
+        
+        public MethodCommand( String name ) {
+            this.name = name;
+        }
+        
+        @Override
+        public boolean canExecute() {
+            if (!Metrics.ENABLED) return Controller.this.canExecuteCommand(name);
+            long start = System.nanoTime();
+            try {
+                return Controller.this.canExecuteCommand(name);
+            } finally {
+                metrics.canExecuteEvaluated(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void execute() {
+            if ( canExecute() ) {
+                invokeCommand(name);
+            }
+        }
+        
+    }
+    
+    private class AsyncMethodCommand extends MethodCommand implements IAsyncCommand {
+
+        // accessed on EDT only
+        private CommandTask task;
+
+        public AsyncMethodCommand( String name ) {
+            super(name);
+        }
+
+        @Override
+        public boolean canExecute() {
+            return null == task && super.canExecute();
+        }
+
+        @Override
+        public void execute() {
+            executeAsync();
+        }
+
+        @Override
+        public Future<?> executeAsync() {
+            if ( !canExecute() ) return null;
+            CommandTask commandTask = new CommandTask(this);
+            task = commandTask;
+            // disable bound buttons while command is running
+            refreshCommandNow(name);
+            try {
+                asyncExecutor().execute(commandTask);
+            } catch (RejectedExecutionException e) {
+                task = null;
+                refreshCommandNow(name);
+                throw e;
+            }
+            return commandTask;
+        }
+
+        @Override
+        public boolean isRunning() {
+            return null != task;
+        }
+
+        @Override
+        public void cancel() {
+            if (null != task) task.cancel(true);
+        }
+
+        void finished( CommandTask commandTask ) {
+            if (task != commandTask) return;
+            task = null;
+            refreshCanExecuteCommand(name);
+            if (commandTask.isCancelled()) {
+                onCommandCancelled(name);
+                return;
+            }
+            try {
+                commandTask.get();
+            } catch (ExecutionException e) {
+                onCommandFailed(name, e.getCause());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            onCommandCompleted(name);
+        }
+    }
+
+    private class CommandTask extends FutureTask<Object> {
+
+        private final AsyncMethodCommand command;
+
+        CommandTask( final AsyncMethodCommand command ) {
+            super(new Runnable() {
+                @Override
+                public void run() {
+                    invokeCommand(command.name);
+                }
+            }, null);
+            this.command = command;
+        }
+
+        @Override
+        protected void done() {
+            if (headless) {
+                command.finished(this);
+                return;
+            }
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    command.finished(CommandTask.this);
+                }
+            });
+        }
+    }
+}
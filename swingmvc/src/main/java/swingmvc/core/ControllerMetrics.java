@@ -0,0 +1,150 @@
+package swingmvc.core;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Metrics of one controller class, see {@link Metrics}.
+ * @author elwood
+ */
+public final class ControllerMetrics implements ControllerMetricsMXBean {
+
+    /**
+     * Bucket i contains executions shorter than 2^i microseconds.
+     */
+    private static final int BUCKETS = 24;
+
+    // weak references to initialized, attached and not unloaded controllers
+    private final Set<Reference<?>> liveControllers = Collections.newSetFromMap(new ConcurrentHashMap<Reference<?>, Boolean>());
+    private final ReferenceQueue<Object> collectedControllers = new ReferenceQueue<Object>();
+    private final ConcurrentHashMap<String, CommandStats> commands = new ConcurrentHashMap<String, CommandStats>();
+    private final AtomicLong canExecuteCount = new AtomicLong();
+    private final AtomicLong canExecuteNanos = new AtomicLong();
+    private final ConcurrentHashMap<String, AtomicLong> propertyChanges = new ConcurrentHashMap<String, AtomicLong>();
+
+    ControllerMetrics() {
+    }
+
+    private static class CommandStats {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    }
+
+    /**
+     * @return Handle of controller to pass to other lifecycle methods
+     */
+    Reference<?> controllerInitialized(Object controller) {
+        purgeCollectedControllers();
+        Reference<?> handle = new WeakReference<Object>(controller, collectedControllers);
+        liveControllers.add(handle);
+        return handle;
+    }
+
+    void controllerAttached(Reference<?> handle) {
+        liveControllers.add(handle);
+    }
+
+    void controllerDetached(Reference<?> handle) {
+        liveControllers.remove(handle);
+    }
+
+    void controllerUnloaded(Reference<?> handle) {
+        liveControllers.remove(handle);
+    }
+
+    private void purgeCollectedControllers() {
+        Reference<?> collected;
+        while (null != (collected = collectedControllers.poll())) {
+            liveControllers.remove(collected);
+        }
+    }
+
+    void commandExecuted(String commandName, long nanos) {
+        CommandStats stats = commands.get(commandName);
+        if (null == stats) {
+            CommandStats created = new CommandStats();
+            stats = commands.putIfAbsent(commandName, created);
+            if (null == stats) stats = created;
+        }
+        stats.count.incrementAndGet();
+        long micros = nanos / 1000;
+        int bucket = micros == 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+        stats.buckets.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+    }
+
+    void canExecuteEvaluated(long nanos) {
+        canExecuteCount.incrementAndGet();
+        canExecuteNanos.addAndGet(nanos);
+    }
+
+    void propertyChanged(String propertyName) {
+        Metrics.increment(propertyChanges, String.valueOf(propertyName));
+    }
+
+    @Override
+    public long getLiveControllers() {
+        purgeCollectedControllers();
+        return liveControllers.size();
+    }
+
+    @Override
+    public Map<String, Long> getCommandExecutionCounts() {
+        Map<String, Long> result = new HashMap<String, Long>();
+        for (Map.Entry<String, CommandStats> entry : commands.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().count.get());
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, long[]> getCommandLatencyHistograms() {
+        Map<String, long[]> result = new HashMap<String, long[]>();
+        for (Map.Entry<String, CommandStats> entry : commands.entrySet()) {
+            long[] histogram = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) histogram[i] = entry.getValue().buckets.get(i);
+            result.put(entry.getKey(), histogram);
+        }
+        return result;
+    }
+
+    @Override
+    public long[] getLatencyBucketBoundsMicros() {
+        long[] bounds = new long[BUCKETS - 1];
+        for (int i = 0; i < bounds.length; i++) bounds[i] = 1L << i;
+        return bounds;
+    }
+
+    @Override
+    public long getCanExecuteCount() {
+        return canExecuteCount.get();
+    }
+
+    @Override
+    public double getCanExecuteTotalMillis() {
+        return canExecuteNanos.get() / 1e6;
+    }
+
+    @Override
+    public Map<String, Long> getPropertyChangeCounts() {
+        return Metrics.snapshot(propertyChanges);
+    }
+
+    /**
+     * Resets all counters except number of live controllers.
+     */
+    @Override
+    public void reset() {
+        commands.clear();
+        canExecuteCount.set(0);
+        canExecuteNanos.set(0);
+        propertyChanges.clear();
+    }
+}
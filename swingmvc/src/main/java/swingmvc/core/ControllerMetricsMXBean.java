@@ -0,0 +1,47 @@
+package swingmvc.core;
+
+import java.util.Map;
+
+/**
+ * JMX interface of metrics collected for one controller class.
+ * @author elwood
+ */
+public interface ControllerMetricsMXBean {
+    /**
+     * Number of initialized controllers that are attached to their views (see {@link Controller#isAttached()}),
+     * not unloaded and not garbage collected.
+     */
+    long getLiveControllers();
+
+    /**
+     * Number of executions per command name.
+     */
+    Map<String, Long> getCommandExecutionCounts();
+
+    /**
+     * Execution latency histogram per command name, see {@link #getLatencyBucketBoundsMicros()}.
+     */
+    Map<String, long[]> getCommandLatencyHistograms();
+
+    /**
+     * Upper bounds (exclusive, in microseconds) of histogram buckets. Last bucket has no upper bound.
+     */
+    long[] getLatencyBucketBoundsMicros();
+
+    /**
+     * Number of canExecuteCommand evaluations.
+     */
+    long getCanExecuteCount();
+
+    /**
+     * Total time spent in canExecuteCommand evaluations.
+     */
+    double getCanExecuteTotalMillis();
+
+    /**
+     * Number of model property changes received by controllers, per property name.
+     */
+    Map<String, Long> getPropertyChangeCounts();
+
+    void reset();
+}
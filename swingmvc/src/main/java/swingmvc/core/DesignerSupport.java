@@ -1,22 +1,47 @@
-package swingmvc.core;
-
-/**
- * @author igor.kostromin
- *         04.07.13 19:03
- */
-public final class DesignerSupport {
-    /**
-     * Returns true if current code is executed within NetBeans IDE designer context.
-     */
-    public static boolean isNetbeansDesignerAttached() {
-        boolean designerAttached = false;
-        StackTraceElement[] stackTraceItems = Thread.currentThread().getStackTrace();
-        for (StackTraceElement item : stackTraceItems) {
-            if (item.getClassName().contains("org.netbeans.modules.form.CreationFactory")) {
-                designerAttached = true;
-                break;
-            }
-        }
-        return designerAttached;
-    }
-}
+package swingmvc.core;
+
+/**
+ * @author igor.kostromin
+ *         04.07.13 19:03
+ */
+public final class DesignerSupport {
+
+    private static final String DESIGNER_PROPERTY = "swingmvc.designer";
+
+    private static volatile Boolean designerMode;
+
+    /**
+     * Returns true if current code is executed within NetBeans IDE designer context.
+     * Detection is performed only once (on first call) and cached: system property "swingmvc.designer"
+     * is checked first, and if it is not set, call stack is scanned for NetBeans form editor classes.
+     * Result can be overridden explicitly using {@link #setDesignerMode(Boolean)}.
+     */
+    public static boolean isNetbeansDesignerAttached() {
+        Boolean mode = designerMode;
+        if (null == mode) {
+            mode = detect();
+            designerMode = mode;
+        }
+        return mode;
+    }
+
+    /**
+     * Overrides designer detection.
+     * @param mode true or false to force designer mode, null to detect it again on next call
+     */
+    public static void setDesignerMode(Boolean mode) {
+        designerMode = mode;
+    }
+
+    private static Boolean detect() {
+        String property = System.getProperty(DESIGNER_PROPERTY);
+        if (null != property) return Boolean.valueOf(property);
+        StackTraceElement[] stackTraceItems = Thread.currentThread().getStackTrace();
+        for (StackTraceElement item : stackTraceItems) {
+            if (item.getClassName().contains("org.netbeans.modules.form.CreationFactory")) {
+                return Boolean.TRUE;
+            }
+        }
+        return Boolean.FALSE;
+    }
+}
@@ -0,0 +1,201 @@
+package swingmvc.core;
+
+import javax.swing.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.function.Supplier;
+
+/**
+ * Pool of initialized dialog modules.
+ * Instead of constructing new {@link JDialogModule} each time the dialog is shown, take it from pool
+ * by {@link #acquire(ViewModel)}, which resets it with new model. Dialog is returned to pool automatically when it is hidden
+ * (default close operation of pooled dialogs is set to HIDE_ON_CLOSE). Not more than maxIdle modules are kept,
+ * extra modules are disposed and their controllers are unloaded.
+ * <p>
+ * Idle modules are held strongly (soft references would let pooled dialogs be collected without disposing them),
+ * so pool shrinks by time instead of memory pressure: modules idle longer than idle timeout
+ * (see {@link #setIdleTimeout(int)}) are disposed. Call {@link #clear()} when pool is not needed anymore
+ * (for example, in {@link Controller#onUnload()}), otherwise idle dialogs stay in memory until timeout.
+ * <p>
+ * Pool should be used on the Event Dispatch Thread only.
+ * @author elwood
+ */
+public final class DialogModulePool<TModule extends JDialogModule<?, TViewModel, ?>, TViewModel extends ViewModel> {
+
+    public static final int DEFAULT_IDLE_TIMEOUT = 60000;
+
+    private final Supplier<TModule> factory;
+    private final int maxIdle;
+    private final ArrayDeque<Entry> idle = new ArrayDeque<Entry>();
+    private int prewarmTarget = 0;
+    private boolean prewarmScheduled = false;
+    private int idleTimeout = DEFAULT_IDLE_TIMEOUT;
+    private Timer trimTimer;
+
+    private final class Entry extends ComponentAdapter {
+        final TModule module;
+        boolean inUse;
+        long idleSince;
+
+        Entry(TModule module) {
+            this.module = module;
+        }
+
+        @Override
+        public void componentHidden(ComponentEvent e) {
+            if (inUse) {
+                inUse = false;
+                release(this);
+            }
+        }
+    }
+
+    /**
+     * @param factory Creates new modules when pool is empty
+     * @param maxIdle Maximum count of idle modules kept in pool
+     */
+    public DialogModulePool(Supplier<TModule> factory, int maxIdle) {
+        if (null == factory) throw new IllegalArgumentException("factory is null");
+        if (maxIdle <= 0) throw new IllegalArgumentException("maxIdle should be positive");
+        this.factory = factory;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Takes module from pool (or creates new one) and sets the model to it,
+     * so reused dialog does not show state of its previous use.
+     * @param model New model for the module
+     */
+    public TModule acquire(TViewModel model) {
+        if (null == model) throw new IllegalArgumentException("model is null");
+        Entry entry = idle.pollFirst();
+        if (null == entry) entry = create();
+        entry.inUse = true;
+        entry.module.setModel(model);
+        return entry.module;
+    }
+
+    /**
+     * Sets time after which idle module is disposed and its controller is unloaded.
+     * @param millis Timeout in milliseconds, 0 keeps idle modules until {@link #clear()}
+     */
+    public void setIdleTimeout(int millis) {
+        if (millis < 0) throw new IllegalArgumentException("millis should not be negative");
+        idleTimeout = millis;
+        if (null != trimTimer) {
+            trimTimer.stop();
+            trimTimer = null;
+        }
+        scheduleTrim();
+    }
+
+    /**
+     * Returns count of idle modules currently available.
+     */
+    public int idleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Schedules creation of modules on the Event Dispatch Thread until pool contains specified count of idle modules.
+     * Modules are created one per event, so EDT is not blocked for long time.
+     * Call it when dialog is likely to be shown soon and its owner window is already shown
+     * (for example, when command that shows dialog becomes enabled), calls for already prewarmed pool are cheap.
+     */
+    public void prewarm(int count) {
+        if (count > maxIdle) count = maxIdle;
+        if (count <= idle.size()) return;
+        if (count > prewarmTarget) prewarmTarget = count;
+        if (prewarmScheduled) return;
+        prewarmScheduled = true;
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (idleCount() < prewarmTarget) {
+                    Entry entry = create();
+                    entry.idleSince = System.nanoTime();
+                    idle.addLast(entry);
+                    scheduleTrim();
+                }
+                if (idleCount() < prewarmTarget) {
+                    SwingUtilities.invokeLater(this);
+                } else {
+                    prewarmTarget = 0;
+                    prewarmScheduled = false;
+                }
+            }
+        });
+    }
+
+    /**
+     * Disposes all idle modules and unloads their controllers.
+     */
+    public void clear() {
+        prewarmTarget = 0;
+        if (null != trimTimer) trimTimer.stop();
+        Entry entry;
+        while (null != (entry = idle.pollFirst())) {
+            dispose(entry);
+        }
+    }
+
+    private Entry create() {
+        TModule module = factory.get();
+        JDialog view = module.getView();
+        view.setDefaultCloseOperation(WindowConstants.HIDE_ON_CLOSE);
+        Entry entry = new Entry(module);
+        view.addComponentListener(entry);
+        return entry;
+    }
+
+    private void release(Entry entry) {
+        if (idle.size() >= maxIdle) {
+            dispose(entry);
+            return;
+        }
+        entry.idleSince = System.nanoTime();
+        idle.addFirst(entry);
+        scheduleTrim();
+    }
+
+    private void scheduleTrim() {
+        if (0 == idleTimeout || idle.isEmpty()) return;
+        if (null == trimTimer) {
+            trimTimer = new Timer(idleTimeout, new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    trim();
+                }
+            });
+        }
+        if (!trimTimer.isRunning()) trimTimer.start();
+    }
+
+    /**
+     * Disposes modules idle longer than idle timeout, module is disposed not later than two timeouts after release.
+     */
+    private void trim() {
+        long now = System.nanoTime();
+        for (Iterator<Entry> it = idle.iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (now - entry.idleSince >= idleTimeout * 1000000L) {
+                it.remove();
+                dispose(entry);
+            }
+        }
+        if (idle.isEmpty()) trimTimer.stop();
+    }
+
+    private void dispose(Entry entry) {
+        JDialog view = entry.module.getView();
+        view.removeComponentListener(entry);
+        view.dispose();
+        // WINDOW_CLOSED is not raised for dialog that was never shown, unload is called once anyway
+        Controller<?, ?> controller = entry.module.getController();
+        if (null != controller) controller.unload();
+    }
+}
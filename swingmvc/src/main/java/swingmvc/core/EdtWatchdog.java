@@ -0,0 +1,281 @@
+package swingmvc.core;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Opt-in watchdog that detects long calls of controller code on the Event Dispatch Thread.
+ * <p>
+ * Controller marks entry and exit of command execution, model property change handling,
+ * {@link Controller#onModelChanged(ViewModel, ViewModel)} and {@link Controller#onInitialized()}.
+ * Low-priority monitor thread checks the innermost active call periodically, and if it runs longer
+ * than threshold, samples stack of EDT and stores {@link StallReport} in bounded ring buffer.
+ * When watchdog is not started, marking costs one volatile read. Calls nested deeper than 64 levels are not tracked.
+ * @author elwood
+ */
+public final class EdtWatchdog {
+
+    /**
+     * Kind of controller call.
+     */
+    public enum Kind {
+        COMMAND,
+        PROPERTY_CHANGED,
+        MODEL_CHANGED,
+        INITIALIZED
+    }
+
+    /**
+     * Information about one detected stall.
+     */
+    public static final class StallReport {
+        private final Class<?> controllerClass;
+        private final Kind kind;
+        private final String name;
+        private final long durationMillis;
+        private final long timestamp;
+        private final StackTraceElement[] stackTrace;
+
+        StallReport(Class<?> controllerClass, Kind kind, String name, long durationMillis, long timestamp, StackTraceElement[] stackTrace) {
+            this.controllerClass = controllerClass;
+            this.kind = kind;
+            this.name = name;
+            this.durationMillis = durationMillis;
+            this.timestamp = timestamp;
+            this.stackTrace = stackTrace;
+        }
+
+        public Class<?> getControllerClass() {
+            return controllerClass;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Name of command or property, null for other kinds of calls.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Duration of call at the moment of stack sampling.
+         */
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        /**
+         * Time of stack sampling (as {@link System#currentTimeMillis()}).
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Stack of EDT sampled when stall was detected.
+         */
+        public StackTraceElement[] getStackTrace() {
+            return stackTrace.clone();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("EDT stall %d ms in %s %s", durationMillis, controllerClass.getName(), kind));
+            if (null != name) sb.append(" \"").append(name).append('"');
+            for (StackTraceElement element : stackTrace) {
+                sb.append("\n\tat ").append(element);
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Active call on EDT. Written by EDT only, read by monitor thread.
+     */
+    private static final class Call {
+        volatile long sequence;
+        volatile Class<?> controllerClass;
+        volatile Kind kind;
+        volatile String name;
+        volatile long startNanos;
+        // accessed by monitor thread only
+        long reportedSequence = -1;
+    }
+
+    private static final int MAX_DEPTH = 64;
+    // token is generation of watchdog in high bits and depth of call in low bits
+    private static final int DEPTH_BITS = 6;
+    private static final int GENERATION_MASK = 0xFFFFFF;
+
+    private static volatile EdtWatchdog instance;
+    // guarded by class lock
+    private static int generations = 0;
+
+    private final int generation;
+    private final long thresholdNanos;
+    private final Call[] calls = new Call[MAX_DEPTH];
+    private volatile int depth = 0;
+    private long sequence = 0;
+    private volatile Thread edt;
+
+    private final StallReport[] reports;
+    private int reportsHead = 0;
+    private int reportsCount = 0;
+
+    private final Thread monitor;
+    private volatile boolean running = true;
+
+    private EdtWatchdog(long thresholdMillis, int capacity, int generation) {
+        this.generation = generation;
+        this.thresholdNanos = thresholdMillis * 1000000L;
+        this.reports = new StallReport[capacity];
+        for (int i = 0; i < MAX_DEPTH; i++) calls[i] = new Call();
+        final long interval = Math.max(10, thresholdMillis / 4);
+        monitor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running) {
+                    try {
+                        Thread.sleep(interval);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    check();
+                }
+            }
+        }, "swingmvc-edt-watchdog");
+        monitor.setDaemon(true);
+        monitor.setPriority(Thread.MIN_PRIORITY);
+    }
+
+    /**
+     * Starts watchdog (previously started one is stopped).
+     * @param thresholdMillis Calls longer than this are reported
+     * @param capacity Number of recent reports to keep
+     */
+    public static synchronized EdtWatchdog start(long thresholdMillis, int capacity) {
+        if (thresholdMillis <= 0) throw new IllegalArgumentException("thresholdMillis should be positive");
+        if (capacity <= 0) throw new IllegalArgumentException("capacity should be positive");
+        stop();
+        generations = (generations + 1) & GENERATION_MASK;
+        EdtWatchdog watchdog = new EdtWatchdog(thresholdMillis, capacity, generations);
+        watchdog.monitor.start();
+        instance = watchdog;
+        return watchdog;
+    }
+
+    /**
+     * Stops running watchdog, if any.
+     */
+    public static synchronized void stop() {
+        EdtWatchdog watchdog = instance;
+        if (null == watchdog) return;
+        instance = null;
+        watchdog.running = false;
+        watchdog.depth = 0;
+        watchdog.monitor.interrupt();
+    }
+
+    /**
+     * Returns running watchdog or null.
+     */
+    public static EdtWatchdog getInstance() {
+        return instance;
+    }
+
+    /**
+     * Marks entry to controller call.
+     * @return Token to pass to {@link #exit(int)}
+     */
+    static int enter(Class<?> controllerClass, Kind kind, String name) {
+        EdtWatchdog watchdog = instance;
+        if (null == watchdog || !SwingUtilities.isEventDispatchThread()) return -1;
+        return watchdog.push(controllerClass, kind, name);
+    }
+
+    /**
+     * Marks exit from controller call. Tokens of stopped (or restarted) watchdog are ignored.
+     */
+    static void exit(int token) {
+        if (token < 0) return;
+        EdtWatchdog watchdog = instance;
+        if (null != watchdog && token >>> DEPTH_BITS == watchdog.generation) {
+            watchdog.depth = Math.min(token & (MAX_DEPTH - 1), watchdog.depth);
+        }
+    }
+
+    private int push(Class<?> controllerClass, Kind kind, String name) {
+        int current = depth;
+        if (current >= MAX_DEPTH) return -1;
+        if (null == edt) edt = Thread.currentThread();
+        Call call = calls[current];
+        call.controllerClass = controllerClass;
+        call.kind = kind;
+        call.name = name;
+        call.startNanos = System.nanoTime();
+        call.sequence = ++sequence;
+        depth = current + 1;
+        return generation << DEPTH_BITS | current;
+    }
+
+    /**
+     * Called periodically by monitor thread.
+     */
+    private void check() {
+        int current = depth;
+        Thread thread = edt;
+        if (current == 0 || null == thread) return;
+        Call call = calls[current - 1];
+        long callSequence = call.sequence;
+        if (call.reportedSequence == callSequence) return;
+        Class<?> controllerClass = call.controllerClass;
+        Kind kind = call.kind;
+        String name = call.name;
+        long elapsed = System.nanoTime() - call.startNanos;
+        if (elapsed < thresholdNanos) return;
+        StackTraceElement[] stackTrace = thread.getStackTrace();
+        // call could be completed while stack was sampled
+        if (call.sequence != callSequence || depth < current) return;
+        call.reportedSequence = callSequence;
+        addReport(new StallReport(controllerClass, kind, name, elapsed / 1000000L, System.currentTimeMillis(), stackTrace));
+    }
+
+    private synchronized void addReport(StallReport report) {
+        reports[(reportsHead + reportsCount) % reports.length] = report;
+        if (reportsCount < reports.length) {
+            reportsCount++;
+        } else {
+            reportsHead = (reportsHead + 1) % reports.length;
+        }
+    }
+
+    /**
+     * Returns recent stall reports, oldest first.
+     */
+    public synchronized List<StallReport> getRecentStalls() {
+        List<StallReport> result = new ArrayList<StallReport>(reportsCount);
+        for (int i = 0; i < reportsCount; i++) {
+            result.add(reports[(reportsHead + i) % reports.length]);
+        }
+        return result;
+    }
+
+    /**
+     * Removes all stored reports.
+     */
+    public synchronized void clear() {
+        Arrays.fill(reports, null);
+        reportsHead = 0;
+        reportsCount = 0;
+    }
+
+    public long getThresholdMillis() {
+        return thresholdNanos / 1000000L;
+    }
+}
@@ -0,0 +1,27 @@
+package swingmvc.core;
+
+import java.util.concurrent.Future;
+
+/**
+ * Command that is executed in background, outside of the Event Dispatch Thread.
+ * @author elwood
+ */
+public interface IAsyncCommand extends ICommand {
+    /**
+     * Starts command execution in background.
+     * While command is running, it can't be executed again and buttons bound to it are disabled.
+     * @return Future that can be used to wait or cancel execution,
+     * or null if command can't be executed now or is already running
+     */
+    Future<?> executeAsync();
+
+    /**
+     * Returns true if command is running now.
+     */
+    boolean isRunning();
+
+    /**
+     * Cancels running execution (interrupting the worker thread). Does nothing if command is not running.
+     */
+    void cancel();
+}
@@ -0,0 +1,12 @@
+package swingmvc.core;
+
+/**
+ * Listener of {@link ObservableList} changes.
+ * @author elwood
+ */
+public interface IListChangedListener<E> {
+    /**
+     * Called after list has been changed.
+     */
+    void listChanged( ListChangeEvent<E> event );
+}
@@ -0,0 +1,23 @@
+package swingmvc.core;
+
+import java.util.List;
+
+/**
+ * Source of data for {@link PagedTableModel}.
+ * Methods are called on background threads.
+ * @author elwood
+ */
+public interface IPagedDataProvider<E> {
+    /**
+     * Returns total count of rows.
+     */
+    int count();
+
+    /**
+     * Loads rows from specified range.
+     * Implementation should respond to thread interruption: fetch of page that is scrolled out of view is cancelled.
+     * @param offset Index of first row
+     * @param limit Maximum count of rows to return
+     */
+    List<E> fetch( int offset, int limit );
+}
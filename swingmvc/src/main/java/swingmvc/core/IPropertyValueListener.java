@@ -0,0 +1,13 @@
+package swingmvc.core;
+
+/**
+ * Listener of property changes with old and new values,
+ * see {@link ViewModel#raisePropertyChange(String, Object, Object)}.
+ * @author elwood
+ */
+public interface IPropertyValueListener {
+    /**
+     * Called on the thread that changed the property, before change notification is delivered.
+     */
+    void propertyValueChanged( ViewModel source, String propName, Object oldValue, Object newValue );
+}
@@ -1,80 +1,169 @@
-package swingmvc.core;
-
-import javax.swing.*;
-import java.awt.*;
-
-/**
- * Base class for modules that use {@link JPanel} as view.
- * @author elwood
- */
-public abstract class JPanelModule<TView extends JPanel, TViewModel extends ViewModel, TController extends Controller<TView, TViewModel>> extends JPanel {
-
-    public JPanelModule(LayoutManager layout, boolean isDoubleBuffered) {
-        super(layout, isDoubleBuffered);
-        ctorCore();
-    }
-
-    public JPanelModule(LayoutManager layout) {
-        super(layout);
-        ctorCore();
-    }
-
-    public JPanelModule(boolean isDoubleBuffered) {
-        super(isDoubleBuffered);
-        ctorCore();
-    }
-
-    public JPanelModule() {
-        ctorCore();
-    }
-
-    private void ctorCore() {
-        try {
-            Class<TView> viewClazz= viewClass();
-            TView view = viewClazz.newInstance();
-
-            if (!DesignerSupport.isNetbeansDesignerAttached() ) {
-                controller = controllerClass().newInstance();
-                controller.initialize(view);
-            }
-
-            // add wrapped view as child
-            this.setLayout(new BorderLayout());
-            this.add(view, BorderLayout.CENTER);
-
-            this.view = view;
-        } catch (InstantiationException ex) {
-            throw new RuntimeException (ex);
-        } catch (IllegalAccessException ex) {
-            throw new RuntimeException (ex);
-        }
-    }
-
-    private TView view;
-    private TController controller;
-
-    /**
-     * You should implement this to provide the real view clazz object in runtime.
-     */
-    protected abstract Class<TView> viewClass();
-
-    /**
-     * You should implement this to provide the real controller clazz object in runtime.
-     */
-    protected abstract Class<TController> controllerClass();
-    
-    /**
-     * @return Underlying controller.
-     */
-    public TController getController() {
-        return controller;
-    }
-    
-    public TViewModel getModel() {
-        return controller.getModel();
-    }
-    
-    public void setModel( TViewModel model) {
-        controller.setModel(model);
-    }
-}
+package swingmvc.core;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.util.function.Supplier;
+
+/**
+ * Base class for modules that use {@link JPanel} as view.
+ * View and controller are created by factories passed to constructor,
+ * or (if factories are not provided) by classes returned from {@link #viewClass()} and {@link #controllerClass()}.
+ * <p>
+ * Module can be lazy (see {@link #isLazy()}): in this case view and controller are not created
+ * in constructor, module shows lightweight placeholder instead, and real view and controller
+ * are created when module is shown on screen first time.
+ * @author elwood
+ */
+public abstract class JPanelModule<TView extends JPanel, TViewModel extends ViewModel, TController extends Controller<TView, TViewModel>> extends JPanel {
+
+    public JPanelModule(LayoutManager layout, boolean isDoubleBuffered) {
+        super(layout, isDoubleBuffered);
+        ctorCore();
+    }
+
+    public JPanelModule(LayoutManager layout) {
+        super(layout);
+        ctorCore();
+    }
+
+    public JPanelModule(boolean isDoubleBuffered) {
+        super(isDoubleBuffered);
+        ctorCore();
+    }
+
+    public JPanelModule() {
+        ctorCore();
+    }
+
+    /**
+     * Creates module using specified factories instead of reflection.
+     * @param viewFactory Creates view, if null then {@link #viewClass()} is used
+     * @param controllerFactory Creates controller, if null then {@link #controllerClass()} is used
+     */
+    public JPanelModule(Supplier<TView> viewFactory, Supplier<TController> controllerFactory) {
+        this.viewFactory = viewFactory;
+        this.controllerFactory = controllerFactory;
+        ctorCore();
+    }
+
+    private void ctorCore() {
+        this.setLayout(new BorderLayout());
+        if (isLazy() && !DesignerSupport.isNetbeansDesignerAttached()) {
+            placeholder = createPlaceholder();
+            if (null != placeholder) this.add(placeholder, BorderLayout.CENTER);
+            this.addHierarchyListener(new RealizeListener());
+        } else {
+            realize();
+        }
+    }
+
+    private Supplier<TView> viewFactory;
+    private Supplier<TController> controllerFactory;
+    private TView view;
+    private TController controller;
+    private boolean realized = false;
+    private JComponent placeholder;
+    private TViewModel pendingModel;
+
+    /**
+     * Waits the moment when module becomes showing first time.
+     */
+    private class RealizeListener implements HierarchyListener {
+        @Override
+        public void hierarchyChanged(HierarchyEvent e) {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && isShowing()) {
+                removeHierarchyListener(this);
+                realize();
+            }
+        }
+    }
+
+    /**
+     * Creates view and controller if they are not created yet.
+     * Model passed to {@link #setModel(ViewModel)} before is applied to controller.
+     * Called automatically in constructor (or when module is shown first time if module is lazy),
+     * but can be called explicitly to force creation of lazy module.
+     */
+    public void realize() {
+        if (realized) return;
+        realized = true;
+        TView view = ModuleBootstrap.createView(this, viewFactory, viewClass());
+        controller = ModuleBootstrap.attach(this, view, controllerFactory, controllerClass(), pendingModel);
+        pendingModel = null;
+
+        // replace placeholder by wrapped view
+        if (null != placeholder) {
+            this.remove(placeholder);
+            placeholder = null;
+        }
+        this.add(view, BorderLayout.CENTER);
+
+        this.view = view;
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Returns true if view and controller are created.
+     */
+    public boolean isRealized() {
+        return realized;
+    }
+
+    /**
+     * Override this and return true to defer creation of view and controller until module is shown first time.
+     * Called from constructor, so implementation should not depend on subclass fields.
+     * Note that lazy module has no useful preferred size until it is realized.
+     */
+    protected boolean isLazy() {
+        return false;
+    }
+
+    /**
+     * Creates component displayed instead of view until lazy module is realized.
+     * Returns null by default (module stays empty).
+     */
+    protected JComponent createPlaceholder() {
+        return null;
+    }
+
+    /**
+     * Override this to provide the real view clazz object in runtime if view factory is not passed to constructor.
+     */
+    protected Class<TView> viewClass() {
+        return null;
+    }
+
+    /**
+     * Override this to provide the real controller clazz object in runtime if controller factory is not passed to constructor.
+     */
+    protected Class<TController> controllerClass() {
+        return null;
+    }
+    
+    /**
+     * @return Underlying controller or null if lazy module is not realized yet.
+     */
+    public TController getController() {
+        return controller;
+    }
+    
+    public TViewModel getModel() {
+        if (!realized) return pendingModel;
+        return controller.getModel();
+    }
+    
+    /**
+     * Sets the model. If lazy module is not realized yet, model will be applied on realization.
+     */
+    public void setModel( TViewModel model) {
+        if (!realized) {
+            if (null == model) throw new IllegalArgumentException("model is null");
+            pendingModel = model;
+            return;
+        }
+        controller.setModel(model);
+    }
+}
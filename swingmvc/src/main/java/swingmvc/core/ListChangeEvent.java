@@ -0,0 +1,86 @@
+package swingmvc.core;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes one change of {@link ObservableList}.
+ * Range is specified by fromIndex (inclusive) and toIndex (exclusive):
+ * <ul>
+ *     <li>INSERT - elements were inserted, range covers new elements</li>
+ *     <li>REMOVE - elements were removed, range covers their old positions, see {@link #getRemoved()}</li>
+ *     <li>REPLACE - elements were replaced, range covers them, see {@link #getRemoved()} for old values</li>
+ *     <li>MOVE - elements in range were moved, now they start at {@link #getNewIndex()}</li>
+ *     <li>RESET - whole content of list was replaced, range covers new content</li>
+ * </ul>
+ * @author elwood
+ */
+public final class ListChangeEvent<E> {
+
+    public enum Type {
+        INSERT,
+        REMOVE,
+        REPLACE,
+        MOVE,
+        RESET
+    }
+
+    private final ObservableList<E> source;
+    private final Type type;
+    private final int fromIndex;
+    private final int toIndex;
+    private final int newIndex;
+    private final List<E> removed;
+
+    ListChangeEvent( ObservableList<E> source, Type type, int fromIndex, int toIndex, int newIndex, List<E> removed ) {
+        this.source = source;
+        this.type = type;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        this.newIndex = newIndex;
+        this.removed = null == removed ? Collections.<E>emptyList() : Collections.unmodifiableList( removed );
+    }
+
+    public ObservableList<E> getSource() {
+        return source;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getFromIndex() {
+        return fromIndex;
+    }
+
+    public int getToIndex() {
+        return toIndex;
+    }
+
+    /**
+     * Returns count of affected elements.
+     */
+    public int getCount() {
+        return toIndex - fromIndex;
+    }
+
+    /**
+     * For MOVE returns new index of first moved element, otherwise returns fromIndex.
+     */
+    public int getNewIndex() {
+        return newIndex;
+    }
+
+    /**
+     * For REMOVE and REPLACE returns removed (old) elements, otherwise empty list.
+     */
+    public List<E> getRemoved() {
+        return removed;
+    }
+
+    @Override
+    public String toString() {
+        if (type == Type.MOVE) return String.format( "%s [%d, %d) -> %d", type, fromIndex, toIndex, newIndex );
+        return String.format( "%s [%d, %d)", type, fromIndex, toIndex );
+    }
+}
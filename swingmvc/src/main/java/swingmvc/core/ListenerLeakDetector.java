@@ -0,0 +1,157 @@
+package swingmvc.core;
+
+import binding.IPropertyChangedListener;
+
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Diagnostic that finds view models still holding listeners of detached controllers (see {@link Controller#isAttached()}).
+ * Detached controller unsubscribes itself from model, but listeners added by controller code (for example,
+ * anonymous classes created in {@link Controller#onInitialized()}) stay subscribed: they receive notifications for
+ * nothing and keep controller and its view reachable as long as model lives.
+ * Listener is considered owned by controller if it is the controller itself, or if controller is referenced
+ * by its fields (directly or via enclosing instances of nested classes).
+ * <p>
+ * Enabled by system property "swingmvc.leakDetection" or by {@link #setEnabled(boolean)}.
+ * Only view models set to controllers after enabling are tracked, tracked models are weakly referenced.
+ * @author elwood
+ */
+public final class ListenerLeakDetector {
+
+    private static volatile boolean enabled = Boolean.getBoolean( "swingmvc.leakDetection" );
+    private static final Map<ViewModel, Boolean> models = new WeakHashMap<ViewModel, Boolean>();
+
+    private ListenerLeakDetector() {
+    }
+
+    // depth of enclosing instances chain checked to find owner of listener
+    private static final int MAX_OWNER_DEPTH = 3;
+
+    /**
+     * View model that holds listener of detached controller.
+     */
+    public static final class Leak {
+        private final ViewModel model;
+        private final Controller<?, ?> controller;
+        private final IPropertyChangedListener listener;
+
+        Leak( ViewModel model, Controller<?, ?> controller, IPropertyChangedListener listener ) {
+            this.model = model;
+            this.controller = controller;
+            this.listener = listener;
+        }
+
+        public ViewModel getModel() {
+            return model;
+        }
+
+        public Controller<?, ?> getController() {
+            return controller;
+        }
+
+        /**
+         * Listener owned by controller, can be the controller itself.
+         */
+        public IPropertyChangedListener getListener() {
+            return listener;
+        }
+
+        public Object getView() {
+            return controller.view;
+        }
+
+        @Override
+        public String toString() {
+            return String.format( "%s holds %s of detached %s (view %s)", model.getClass().getName(),
+                    listener == controller ? "itself" : listener.getClass().getName(),
+                    controller.getClass().getName(), null == controller.view ? null : controller.view.getClass().getName() );
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled( boolean value ) {
+        enabled = value;
+    }
+
+    /**
+     * Called by controller when model is set.
+     */
+    static void track( ViewModel model ) {
+        if (!enabled) return;
+        synchronized (models) {
+            models.put( model, Boolean.TRUE );
+        }
+    }
+
+    /**
+     * Checks tracked view models. Should be called on the Event Dispatch Thread.
+     * Call {@link System#gc()} before to skip weak listeners that are not reachable anymore.
+     */
+    public static List<Leak> findLeaks() {
+        List<ViewModel> snapshot;
+        synchronized (models) {
+            snapshot = new ArrayList<ViewModel>( models.keySet() );
+        }
+        List<Leak> leaks = new ArrayList<Leak>();
+        for (ViewModel model : snapshot) {
+            for (IPropertyChangedListener listener : model.getListeners()) {
+                Controller<?, ?> owner = findOwner( listener, MAX_OWNER_DEPTH );
+                if (null != owner && !owner.isAttached()) {
+                    leaks.add( new Leak( model, owner, listener ) );
+                }
+            }
+        }
+        return leaks;
+    }
+
+    /**
+     * Returns controller that is the object itself or referenced by its instance fields
+     * (following references to objects of nested classes up to specified depth), or null.
+     */
+    private static Controller<?, ?> findOwner( Object object, int depth ) {
+        if (object instanceof Controller) return (Controller<?, ?>) object;
+        if (depth == 0) return null;
+        for (Class<?> clazz = object.getClass(); null != clazz && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (Modifier.isStatic( field.getModifiers() ) || field.getType().isPrimitive()) continue;
+                Object value;
+                try {
+                    field.setAccessible( true );
+                    value = field.get( object );
+                } catch (RuntimeException e) {
+                    // field of module that is not open for reflection
+                    continue;
+                } catch (IllegalAccessException e) {
+                    continue;
+                }
+                if (value instanceof Controller) return (Controller<?, ?>) value;
+                // enclosing instance of anonymous or inner class can be nested class too
+                if (null != value && field.isSynthetic()) {
+                    Controller<?, ?> owner = findOwner( value, depth - 1 );
+                    if (null != owner) return owner;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Prints found leaks to specified stream.
+     */
+    public static void printLeaks( PrintStream out ) {
+        List<Leak> leaks = findLeaks();
+        out.println( String.format( "%d view model listener leak(s) found", leaks.size() ) );
+        for (Leak leak : leaks) {
+            out.println( "  " + leak );
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package swingmvc.core;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional runtime metrics of controllers and view models exported as JMX MXBeans:
+ * one {@link ControllerMetricsMXBean} per controller class ("swingmvc:type=Controller,name=&lt;class&gt;")
+ * and one {@link ViewModelMetricsMXBean} per view model class ("swingmvc:type=ViewModel,name=&lt;class&gt;").
+ * <p>
+ * Metrics are enabled by system property "swingmvc.metrics=true". The flag is a constant,
+ * so instrumentation code is removed by JIT when metrics are disabled.
+ * @author elwood
+ */
+public final class Metrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("swingmvc.metrics");
+
+    private static final ClassValue<ControllerMetrics> CONTROLLERS = new ClassValue<ControllerMetrics>() {
+        @Override
+        protected ControllerMetrics computeValue(Class<?> type) {
+            ControllerMetrics metrics = new ControllerMetrics();
+            register("Controller", type, metrics);
+            return metrics;
+        }
+    };
+
+    private static final ClassValue<ViewModelMetrics> VIEW_MODELS = new ClassValue<ViewModelMetrics>() {
+        @Override
+        protected ViewModelMetrics computeValue(Class<?> type) {
+            ViewModelMetrics metrics = new ViewModelMetrics();
+            register("ViewModel", type, metrics);
+            return metrics;
+        }
+    };
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns metrics of controller class (registers MXBean on first call).
+     */
+    public static ControllerMetrics controller(Class<?> controllerClass) {
+        return CONTROLLERS.get(controllerClass);
+    }
+
+    /**
+     * Returns metrics of view model class (registers MXBean on first call).
+     */
+    public static ViewModelMetrics viewModel(Class<?> viewModelClass) {
+        return VIEW_MODELS.get(viewModelClass);
+    }
+
+    private static void register(String type, Class<?> clazz, Object mbean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(String.format("swingmvc:type=%s,name=%s", type, clazz.getName()));
+            if (!server.isRegistered(name)) server.registerMBean(mbean, name);
+        } catch (Exception e) {
+            // metrics are optional, application should work without them (for example when class
+            // with the same name is loaded by another class loader)
+        }
+    }
+
+    /**
+     * Increments counter stored in map by key.
+     */
+    static void increment(ConcurrentMap<String, AtomicLong> counters, String key) {
+        AtomicLong counter = counters.get(key);
+        if (null == counter) {
+            AtomicLong created = new AtomicLong();
+            counter = counters.putIfAbsent(key, created);
+            if (null == counter) counter = created;
+        }
+        counter.incrementAndGet();
+    }
+
+    static Map<String, Long> snapshot(ConcurrentHashMap<String, AtomicLong> counters) {
+        Map<String, Long> result = new HashMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,109 @@
+package swingmvc.core;
+
+import java.awt.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Shared construction logic of {@link JFrameModule}, {@link JDialogModule} and {@link JPanelModule}.
+ * Uses view and controller factories if they are provided, otherwise
+ * falls back to viewClass()/controllerClass() and constructors cached per class.
+ * @author elwood
+ */
+final class ModuleBootstrap {
+
+    private static final ClassValue<Constructor<?>> DEFAULT_CONSTRUCTORS = new ClassValue<Constructor<?>>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> type) {
+            return findConstructor(type);
+        }
+    };
+
+    private static final ClassValue<Constructor<?>> DIALOG_CONSTRUCTORS = new ClassValue<Constructor<?>>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> type) {
+            return findConstructor(type, Frame.class, Boolean.TYPE);
+        }
+    };
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private ModuleBootstrap() {
+    }
+
+    /**
+     * Creates view of module using factory, or class (via its no-arg constructor) if there is no factory.
+     */
+    static <T> T createView(Object module, Supplier<T> factory, Class<T> clazz) {
+        if (!ModuleProfiler.isEnabled()) return create(factory, clazz, "view");
+        long start = System.nanoTime();
+        T view = create(factory, clazz, "view");
+        ModuleProfiler.record(module.getClass(), ModuleProfiler.Phase.VIEW_CONSTRUCTION, start);
+        return view;
+    }
+
+    /**
+     * Creates view or controller using factory, or class (via its no-arg constructor) if there is no factory.
+     */
+    private static <T> T create(Supplier<T> factory, Class<T> clazz, String kind) {
+        if (null != factory) return factory.get();
+        if (null == clazz) throw new IllegalStateException(String.format("Neither %s factory nor %s class is provided", kind, kind));
+        return clazz.cast(newInstance(DEFAULT_CONSTRUCTORS.get(clazz), NO_ARGS));
+    }
+
+    /**
+     * Creates dialog view using factory, or class (via its (Frame, boolean) constructor) if there is no factory.
+     */
+    static <T> T createDialog(Object module, BiFunction<Frame, Boolean, T> factory, Class<T> clazz, Frame owner, boolean modal) {
+        long start = ModuleProfiler.isEnabled() ? System.nanoTime() : 0;
+        T view;
+        if (null != factory) {
+            view = factory.apply(owner, modal);
+        } else {
+            if (null == clazz) throw new IllegalStateException("Neither view factory nor view class is provided");
+            view = clazz.cast(newInstance(DIALOG_CONSTRUCTORS.get(clazz), new Object[] { owner, modal }));
+        }
+        if (start != 0) ModuleProfiler.record(module.getClass(), ModuleProfiler.Phase.VIEW_CONSTRUCTION, start);
+        return view;
+    }
+
+    /**
+     * Creates controller for view, initializes it and then sets initial model (if not null),
+     * so {@link Controller#onModelChanged(ViewModel, ViewModel)} always sees the view.
+     * @return Initialized controller or null if module is created by NetBeans designer
+     */
+    static <TView, TViewModel extends ViewModel, TController extends Controller<TView, TViewModel>> TController attach(
+            Object module, TView view, Supplier<TController> factory, Class<TController> clazz, TViewModel model) {
+        if (DesignerSupport.isNetbeansDesignerAttached()) return null;
+        long start = ModuleProfiler.isEnabled() ? System.nanoTime() : 0;
+        TController controller = create(factory, clazz, "controller");
+        if (start != 0) ModuleProfiler.record(module.getClass(), ModuleProfiler.Phase.CONTROLLER_CONSTRUCTION, start);
+        controller.initialize(view, module.getClass());
+        if (null != model) controller.setModel(model);
+        return controller;
+    }
+
+    private static Constructor<?> findConstructor(Class<?> type, Class<?>... parameterTypes) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor(parameterTypes);
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static Object newInstance(Constructor<?> constructor, Object[] args) {
+        try {
+            return constructor.newInstance(args);
+        } catch (InstantiationException ex) {
+            throw new RuntimeException(ex);
+        } catch (IllegalAccessException ex) {
+            throw new RuntimeException(ex);
+        } catch (InvocationTargetException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package swingmvc.core;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects time spent by modules in construction phases.
+ * Disabled by default, can be enabled by system property "swingmvc.profile=true" or {@link #setEnabled(boolean)}.
+ * @author elwood
+ */
+public final class ModuleProfiler {
+
+    /**
+     * Measured phases of module construction.
+     */
+    public enum Phase {
+        VIEW_CONSTRUCTION,
+        CONTROLLER_CONSTRUCTION,
+        INITIALIZE_COMMANDS,
+        INITIALIZE_BINDINGS,
+        ON_INITIALIZED
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private static volatile boolean enabled = Boolean.getBoolean("swingmvc.profile");
+
+    private static final ConcurrentHashMap<Class<?>, Stats> stats = new ConcurrentHashMap<Class<?>, Stats>();
+
+    private ModuleProfiler() {
+    }
+
+    private static class Stats {
+        final Class<?> moduleClass;
+        final AtomicLong count = new AtomicLong();
+        final AtomicLongArray nanos = new AtomicLongArray(PHASES.length);
+
+        Stats(Class<?> moduleClass) {
+            this.moduleClass = moduleClass;
+        }
+
+        long total() {
+            long total = 0;
+            for (int i = 0; i < PHASES.length; i++) total += nanos.get(i);
+            return total;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        ModuleProfiler.enabled = enabled;
+    }
+
+    /**
+     * Removes all collected data.
+     */
+    public static void reset() {
+        stats.clear();
+    }
+
+    /**
+     * Adds time elapsed since startNanos to the phase of module.
+     * @return Current {@link System#nanoTime()} value, can be used as start of next phase
+     */
+    static long record(Class<?> moduleClass, Phase phase, long startNanos) {
+        long now = System.nanoTime();
+        Stats moduleStats = stats.get(moduleClass);
+        if (null == moduleStats) {
+            Stats created = new Stats(moduleClass);
+            moduleStats = stats.putIfAbsent(moduleClass, created);
+            if (null == moduleStats) moduleStats = created;
+        }
+        if (phase == Phase.VIEW_CONSTRUCTION) moduleStats.count.incrementAndGet();
+        moduleStats.nanos.addAndGet(phase.ordinal(), now - startNanos);
+        return now;
+    }
+
+    /**
+     * Prints collected times (in milliseconds) sorted by total time, slowest modules first.
+     */
+    public static void printReport(PrintStream out) {
+        List<Stats> items = new ArrayList<Stats>(stats.values());
+        Collections.sort(items, new Comparator<Stats>() {
+            @Override
+            public int compare(Stats a, Stats b) {
+                long ta = a.total();
+                long tb = b.total();
+                return ta < tb ? 1 : (ta == tb ? 0 : -1);
+            }
+        });
+        out.printf("%-50s %8s %10s", "Module", "Count", "Total");
+        for (Phase phase : PHASES) out.printf(" %24s", phase);
+        out.println();
+        for (Stats item : items) {
+            out.printf("%-50s %8d %10.2f", item.moduleClass.getName(), item.count.get(), item.total() / 1e6);
+            for (int i = 0; i < PHASES.length; i++) out.printf(" %24.2f", item.nanos.get(i) / 1e6);
+            out.println();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package swingmvc.core;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * List that notifies listeners about changes with exact ranges, see {@link ListChangeEvent}.
+ * Bulk operations ({@link #addAll(int, Collection)}, {@link #removeRange(int, int)}, {@link #clear()},
+ * {@link #move(int, int, int)}, {@link #setAll(Collection)}) raise single event.
+ * Use {@link ObservableListTableModel} and {@link ObservableListModel} to show list in JTable and JList.
+ * <p>
+ * List is not thread-safe, it should be changed on the Event Dispatch Thread when bound to Swing components.
+ * Listeners can be added and removed at any moment, including from notification handler.
+ * @author elwood
+ */
+public class ObservableList<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final IListChangedListener<?>[] NO_LISTENERS = new IListChangedListener<?>[0];
+
+    private final ArrayList<E> elements;
+    private IListChangedListener<?>[] listeners = NO_LISTENERS;
+
+    public ObservableList() {
+        elements = new ArrayList<E>();
+    }
+
+    public ObservableList( Collection<? extends E> elements ) {
+        this.elements = new ArrayList<E>( elements );
+    }
+
+    @Override
+    public E get( int index ) {
+        return elements.get( index );
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    public E set( int index, E element ) {
+        E old = elements.set( index, element );
+        List<E> removed = listeners.length > 0 ? Collections.singletonList( old ) : null;
+        fire( ListChangeEvent.Type.REPLACE, index, index + 1, index, removed );
+        return old;
+    }
+
+    @Override
+    public void add( int index, E element ) {
+        elements.add( index, element );
+        modCount++;
+        fire( ListChangeEvent.Type.INSERT, index, index + 1, index, null );
+    }
+
+    @Override
+    public boolean addAll( Collection<? extends E> c ) {
+        return addAll( elements.size(), c );
+    }
+
+    @Override
+    public boolean addAll( int index, Collection<? extends E> c ) {
+        // size is read before insertion, c can be this list
+        int count = c.size();
+        if (!elements.addAll( index, c )) return false;
+        modCount++;
+        fire( ListChangeEvent.Type.INSERT, index, index + count, index, null );
+        return true;
+    }
+
+    @Override
+    public E remove( int index ) {
+        E old = elements.remove( index );
+        modCount++;
+        List<E> removed = listeners.length > 0 ? Collections.singletonList( old ) : null;
+        fire( ListChangeEvent.Type.REMOVE, index, index + 1, index, removed );
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        removeRange( 0, elements.size() );
+    }
+
+    @Override
+    protected void removeRange( int fromIndex, int toIndex ) {
+        if (fromIndex < 0 || toIndex > elements.size() || fromIndex > toIndex)
+            throw new IndexOutOfBoundsException( String.format( "Range [%d, %d) is out of bounds, size %d", fromIndex, toIndex, elements.size() ) );
+        if (fromIndex == toIndex) return;
+        List<E> range = elements.subList( fromIndex, toIndex );
+        List<E> removed = listeners.length > 0 ? new ArrayList<E>( range ) : null;
+        range.clear();
+        modCount++;
+        fire( ListChangeEvent.Type.REMOVE, fromIndex, toIndex, fromIndex, removed );
+    }
+
+    /**
+     * Replaces elements starting at specified index.
+     */
+    public void replaceRange( int fromIndex, Collection<? extends E> c ) {
+        int toIndex = fromIndex + c.size();
+        if (fromIndex < 0 || toIndex > elements.size())
+            throw new IndexOutOfBoundsException( String.format( "Range [%d, %d) is out of bounds, size %d", fromIndex, toIndex, elements.size() ) );
+        if (fromIndex == toIndex) return;
+        List<E> removed = listeners.length > 0 ? new ArrayList<E>( elements.subList( fromIndex, toIndex ) ) : null;
+        int index = fromIndex;
+        for (E element : c) {
+            elements.set( index++, element );
+        }
+        fire( ListChangeEvent.Type.REPLACE, fromIndex, toIndex, fromIndex, removed );
+    }
+
+    /**
+     * Moves count elements starting at fromIndex, so that after operation they start at newIndex.
+     */
+    public void move( int fromIndex, int count, int newIndex ) {
+        int size = elements.size();
+        if (count < 0 || fromIndex < 0 || fromIndex + count > size || newIndex < 0 || newIndex + count > size)
+            throw new IndexOutOfBoundsException( String.format( "Can't move %d elements from %d to %d, size %d", count, fromIndex, newIndex, size ) );
+        if (count == 0 || fromIndex == newIndex) return;
+        List<E> range = elements.subList( fromIndex, fromIndex + count );
+        List<E> moved = new ArrayList<E>( range );
+        range.clear();
+        elements.addAll( newIndex, moved );
+        modCount++;
+        fire( ListChangeEvent.Type.MOVE, fromIndex, fromIndex + count, newIndex, null );
+    }
+
+    /**
+     * Replaces whole content of list, raising single RESET event.
+     */
+    public void setAll( Collection<? extends E> c ) {
+        elements.clear();
+        elements.addAll( c );
+        modCount++;
+        fire( ListChangeEvent.Type.RESET, 0, elements.size(), 0, null );
+    }
+
+    public void addListChangedListener( IListChangedListener<? super E> listener ) {
+        if (null == listener) throw new IllegalArgumentException( "listener is null" );
+        IListChangedListener<?>[] current = listeners;
+        IListChangedListener<?>[] updated = new IListChangedListener<?>[current.length + 1];
+        System.arraycopy( current, 0, updated, 0, current.length );
+        updated[current.length] = listener;
+        listeners = updated;
+    }
+
+    public void removeListChangedListener( IListChangedListener<? super E> listener ) {
+        IListChangedListener<?>[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].equals( listener )) {
+                IListChangedListener<?>[] updated = current.length == 1 ? NO_LISTENERS : new IListChangedListener<?>[current.length - 1];
+                System.arraycopy( current, 0, updated, 0, i );
+                System.arraycopy( current, i + 1, updated, i, current.length - i - 1 );
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void fire( ListChangeEvent.Type type, int fromIndex, int toIndex, int newIndex, List<E> removed ) {
+        IListChangedListener<?>[] snapshot = listeners;
+        if (snapshot.length == 0) return;
+        ListChangeEvent<E> event = new ListChangeEvent<E>( this, type, fromIndex, toIndex, newIndex, removed );
+        for (int i = 0; i < snapshot.length; i++) {
+            ((IListChangedListener<E>) snapshot[i]).listChanged( event );
+        }
+    }
+}
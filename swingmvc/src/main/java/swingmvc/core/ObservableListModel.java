@@ -0,0 +1,79 @@
+package swingmvc.core;
+
+import javax.swing.AbstractListModel;
+
+/**
+ * List model that shows {@link ObservableList} in JList or JComboBox.
+ * List changes are translated to interval events with exact ranges.
+ * @author elwood
+ */
+public class ObservableListModel<E> extends AbstractListModel<E> {
+
+    private final ObservableList<E> list;
+    // size reported to list by the last event, used to report removal of all rows on reset
+    private int size;
+
+    private final IListChangedListener<E> listener = new IListChangedListener<E>() {
+        @Override
+        public void listChanged( ListChangeEvent<E> event ) {
+            int first = event.getFromIndex();
+            int last = event.getToIndex() - 1;
+            switch (event.getType()) {
+                case INSERT:
+                    if (last >= first) {
+                        size += last - first + 1;
+                        fireIntervalAdded( ObservableListModel.this, first, last );
+                    }
+                    break;
+                case REMOVE:
+                    if (last >= first) {
+                        size -= last - first + 1;
+                        fireIntervalRemoved( ObservableListModel.this, first, last );
+                    }
+                    break;
+                case REPLACE:
+                    if (last >= first) fireContentsChanged( ObservableListModel.this, first, last );
+                    break;
+                case MOVE:
+                    int start = Math.min( first, event.getNewIndex() );
+                    int end = Math.max( last, event.getNewIndex() + event.getCount() - 1 );
+                    fireContentsChanged( ObservableListModel.this, start, end );
+                    break;
+                default:
+                    // JList updates selection only on interval events, so reset is reported as removal and insertion
+                    int oldSize = size;
+                    size = list.size();
+                    if (oldSize > 0) fireIntervalRemoved( ObservableListModel.this, 0, oldSize - 1 );
+                    if (size > 0) fireIntervalAdded( ObservableListModel.this, 0, size - 1 );
+            }
+        }
+    };
+
+    public ObservableListModel( ObservableList<E> list ) {
+        if (null == list) throw new IllegalArgumentException( "list is null" );
+        this.list = list;
+        this.size = list.size();
+        list.addListChangedListener( listener );
+    }
+
+    public ObservableList<E> getList() {
+        return list;
+    }
+
+    /**
+     * Stops listening to list changes.
+     */
+    public void dispose() {
+        list.removeListChangedListener( listener );
+    }
+
+    @Override
+    public int getSize() {
+        return list.size();
+    }
+
+    @Override
+    public E getElementAt( int index ) {
+        return list.get( index );
+    }
+}
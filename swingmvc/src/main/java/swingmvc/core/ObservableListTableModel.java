@@ -0,0 +1,90 @@
+package swingmvc.core;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table model that shows {@link ObservableList} elements as rows.
+ * List changes are translated to table events with exact row ranges,
+ * so JTable repaints and resorts only affected rows.
+ * Override {@link #getColumnValue(Object, int)} to provide cell values.
+ * @author elwood
+ */
+public abstract class ObservableListTableModel<E> extends AbstractTableModel {
+
+    private final ObservableList<E> list;
+    private final String[] columnNames;
+
+    private final IListChangedListener<E> listener = new IListChangedListener<E>() {
+        @Override
+        public void listChanged( ListChangeEvent<E> event ) {
+            int first = event.getFromIndex();
+            int last = event.getToIndex() - 1;
+            switch (event.getType()) {
+                case INSERT:
+                    if (last >= first) fireTableRowsInserted( first, last );
+                    break;
+                case REMOVE:
+                    if (last >= first) fireTableRowsDeleted( first, last );
+                    break;
+                case REPLACE:
+                    if (last >= first) fireTableRowsUpdated( first, last );
+                    break;
+                case MOVE:
+                    // rows between old and new positions are shifted, row count is not changed
+                    int start = Math.min( first, event.getNewIndex() );
+                    int end = Math.max( last, event.getNewIndex() + event.getCount() - 1 );
+                    fireTableRowsUpdated( start, end );
+                    break;
+                default:
+                    fireTableDataChanged();
+            }
+        }
+    };
+
+    /**
+     * @param list List to show
+     * @param columnNames Names of columns
+     */
+    public ObservableListTableModel( ObservableList<E> list, String... columnNames ) {
+        if (null == list) throw new IllegalArgumentException( "list is null" );
+        this.list = list;
+        this.columnNames = columnNames.clone();
+        list.addListChangedListener( listener );
+    }
+
+    /**
+     * Returns value of cell in specified column for specified list element.
+     */
+    protected abstract Object getColumnValue( E element, int column );
+
+    public ObservableList<E> getList() {
+        return list;
+    }
+
+    /**
+     * Stops listening to list changes.
+     */
+    public void dispose() {
+        list.removeListChangedListener( listener );
+    }
+
+    @Override
+    public int getRowCount() {
+        return list.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName( int column ) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt( int rowIndex, int columnIndex ) {
+        return getColumnValue( list.get( rowIndex ), columnIndex );
+    }
+}
@@ -0,0 +1,23 @@
+package swingmvc.core;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks field of view model as observable property.
+ * swingmvc-processor generates class with view model class name and "_Properties" suffix
+ * that contains {@link PropertyKey} constant for each such field, so setters can be written as
+ * {@code PersonVM_Properties.NAME.set(this, name)}.
+ * Field should not be private, static or final.
+ * @author elwood
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ObservableProperty {
+    /**
+     * Name of property, field name by default.
+     */
+    String value() default "";
+}
@@ -0,0 +1,58 @@
+package swingmvc.core;
+
+/**
+ * View model of {@link PagedTableModule}.
+ * Wraps {@link PagedTableModel} and exposes its state as observable properties
+ * "rowCount" and "loading", so controllers can bind to them and declare command dependencies on them.
+ * Creating view model starts loading of table model (see {@link PagedTableModel#load()}).
+ * Should be used on the Event Dispatch Thread only.
+ * @author elwood
+ */
+public class PagedDataViewModel<E> extends ViewModel {
+
+    private final PagedTableModel<E> tableModel;
+    private int rowCount;
+    private boolean loading;
+
+    public PagedDataViewModel( PagedTableModel<E> tableModel ) {
+        if (null == tableModel) throw new IllegalArgumentException( "tableModel is null" );
+        this.tableModel = tableModel;
+        tableModel.setViewModel( this );
+    }
+
+    public PagedTableModel<E> getTableModel() {
+        return tableModel;
+    }
+
+    /**
+     * Returns total count of rows, 0 until count is loaded.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns true while row count or some pages are loading.
+     */
+    public boolean isLoading() {
+        return loading;
+    }
+
+    /**
+     * Drops cached pages and reloads data.
+     */
+    public void refresh() {
+        tableModel.refresh();
+    }
+
+    void update( int rowCount, boolean loading ) {
+        if (this.rowCount != rowCount) {
+            this.rowCount = rowCount;
+            raisePropertyChange( "rowCount" );
+        }
+        if (this.loading != loading) {
+            this.loading = loading;
+            raisePropertyChange( "loading" );
+        }
+    }
+}
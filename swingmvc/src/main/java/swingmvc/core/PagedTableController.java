@@ -0,0 +1,47 @@
+package swingmvc.core;
+
+import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import java.awt.*;
+
+/**
+ * Controller of {@link PagedTableModule}.
+ * Shows table model of current view model in table and reports visible rows to it when viewport is scrolled,
+ * so loads of pages scrolled out of view are cancelled.
+ * Subclasses overriding {@link #onInitialized()} and {@link #onModelChanged(ViewModel, ViewModel)} should call super.
+ * @author elwood
+ */
+public class PagedTableController<E> extends Controller<PagedTableView, PagedDataViewModel<E>> {
+
+    private final ChangeListener viewportListener = new ChangeListener() {
+        @Override
+        public void stateChanged( ChangeEvent e ) {
+            reportVisibleRows();
+        }
+    };
+
+    @Override
+    protected void onInitialized() {
+        view.scrollPane.getViewport().addChangeListener( viewportListener );
+        if (null != getModel()) view.table.setModel( getModel().getTableModel() );
+    }
+
+    @Override
+    protected void onModelChanged( PagedDataViewModel<E> oldModel, PagedDataViewModel<E> model ) {
+        view.table.setModel( model.getTableModel() );
+        reportVisibleRows();
+    }
+
+    private void reportVisibleRows() {
+        PagedDataViewModel<E> model = getModel();
+        if (null == model) return;
+        JTable table = view.table;
+        Rectangle visible = view.scrollPane.getViewport().getViewRect();
+        int first = table.rowAtPoint( new Point( 0, visible.y ) );
+        int last = table.rowAtPoint( new Point( 0, visible.y + visible.height - 1 ) );
+        if (first < 0) return;
+        if (last < 0) last = table.getRowCount() - 1;
+        model.getTableModel().setVisibleRows( first, last );
+    }
+}
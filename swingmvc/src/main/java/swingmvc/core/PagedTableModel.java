@@ -0,0 +1,356 @@
+package swingmvc.core;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Table model that loads rows from {@link IPagedDataProvider} by pages on background executor.
+ * Loading starts with {@link #load()} or {@link #refresh()}, {@link PagedDataViewModel} starts it when created.
+ * Pages are requested when table asks for values of their rows and kept in bounded LRU cache, which always holds
+ * at least visible pages. Requests are submitted later on the Event Dispatch Thread, so table getters
+ * do not fire events. While page is loading, its rows show placeholder values (see {@link #getPlaceholderValue(int, int)}).
+ * Loads of pages that are far from visible rows (see {@link #setVisibleRows(int, int)}) are cancelled.
+ * Failed pages are not requested again until the next {@link #refresh()}.
+ * <p>
+ * Model should be used on the Event Dispatch Thread only.
+ * Override {@link #getColumnValue(Object, int)} to provide cell values.
+ * @author elwood
+ */
+public abstract class PagedTableModel<E> extends AbstractTableModel {
+
+    private final IPagedDataProvider<E> provider;
+    private final int pageSize;
+    private final String[] columnNames;
+    private final Map<Integer, List<E>> pages;
+    private final Map<Integer, PageLoad> loads = new HashMap<Integer, PageLoad>();
+    private final Map<Integer, Throwable> failures = new HashMap<Integer, Throwable>();
+    // pages asked by table that are submitted by flushRequests()
+    private final Set<Integer> requested = new LinkedHashSet<Integer>();
+    private boolean flushScheduled = false;
+    private Executor executor;
+    // pages around visible rows, -1 until visible rows are reported
+    private int firstVisiblePage = -1;
+    private int lastVisiblePage = -1;
+
+    private int rowCount = 0;
+    private boolean countRequested = false;
+    private CountLoad countLoad;
+    private int generation = 0;
+
+    private PagedDataViewModel<E> viewModel;
+
+    /**
+     * @param provider Source of rows
+     * @param pageSize Count of rows loaded at once
+     * @param maxCachedPages Maximum count of pages kept in memory
+     * @param columnNames Names of columns
+     */
+    public PagedTableModel( IPagedDataProvider<E> provider, int pageSize, final int maxCachedPages, String... columnNames ) {
+        if (null == provider) throw new IllegalArgumentException( "provider is null" );
+        if (pageSize <= 0) throw new IllegalArgumentException( "pageSize should be positive" );
+        if (maxCachedPages <= 0) throw new IllegalArgumentException( "maxCachedPages should be positive" );
+        this.provider = provider;
+        this.pageSize = pageSize;
+        this.columnNames = columnNames.clone();
+        this.pages = new LinkedHashMap<Integer, List<E>>( 16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<Integer, List<E>> eldest ) {
+                // evicting pages around visible rows would make table fetch them again on every repaint
+                return size() > Math.max( maxCachedPages, lastVisiblePage - firstVisiblePage + 1 );
+            }
+        };
+    }
+
+    /**
+     * Returns value of cell in specified column for loaded row.
+     */
+    protected abstract Object getColumnValue( E element, int column );
+
+    /**
+     * Returns value shown in cell while its row is loading.
+     * By default shows "Loading..." in first column.
+     */
+    protected Object getPlaceholderValue( int rowIndex, int column ) {
+        return column == 0 ? "Loading..." : null;
+    }
+
+    /**
+     * Returns value shown in cell of row which page has failed to load.
+     * By default shows "Failed to load" in first column.
+     */
+    protected Object getFailedValue( int rowIndex, int column, Throwable error ) {
+        return column == 0 ? "Failed to load" : null;
+    }
+
+    /**
+     * Called on the Event Dispatch Thread when provider has thrown an exception, once per failed load.
+     * Default implementation rethrows it.
+     * @param offset Offset of failed page or -1 if count() has failed
+     */
+    protected void onFetchFailed( int offset, Throwable error ) {
+        if (error instanceof RuntimeException) throw (RuntimeException) error;
+        if (error instanceof Error) throw (Error) error;
+        throw new RuntimeException( error );
+    }
+
+    /**
+     * Sets executor used to load pages.
+     * @param executor Executor or null to use default executor of asynchronous commands
+     */
+    public void setExecutor( Executor executor ) {
+        this.executor = executor;
+    }
+
+    public IPagedDataProvider<E> getProvider() {
+        return provider;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Returns loaded row or null if row is not loaded yet.
+     */
+    public E getElementAt( int rowIndex ) {
+        List<E> page = pages.get( rowIndex / pageSize );
+        int index = rowIndex % pageSize;
+        return null != page && index < page.size() ? page.get( index ) : null;
+    }
+
+    /**
+     * Returns true if row count or some pages are loading now.
+     */
+    public boolean isLoading() {
+        return null != countLoad || !loads.isEmpty();
+    }
+
+    /**
+     * Starts loading row count if loading was not started yet.
+     */
+    public void load() {
+        if (!countRequested) refresh();
+    }
+
+    /**
+     * Drops all cached pages and failures, and reloads row count.
+     */
+    public void refresh() {
+        generation++;
+        countRequested = true;
+        for (PageLoad load : loads.values()) load.cancel( true );
+        loads.clear();
+        pages.clear();
+        failures.clear();
+        requested.clear();
+        if (null != countLoad) countLoad.cancel( true );
+        countLoad = new CountLoad();
+        submit( countLoad );
+        stateChanged();
+    }
+
+    /**
+     * Informs model about rows visible in table. Loads of pages that are not adjacent to visible ones are cancelled.
+     * {@link PagedTableController} calls this automatically when viewport is scrolled.
+     */
+    public void setVisibleRows( int firstRow, int lastRow ) {
+        firstVisiblePage = Math.max( 0, firstRow / pageSize - 1 );
+        lastVisiblePage = lastRow / pageSize + 1;
+        boolean cancelled = false;
+        for (Iterator<Map.Entry<Integer, PageLoad>> it = loads.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, PageLoad> entry = it.next();
+            if (entry.getKey() < firstVisiblePage || entry.getKey() > lastVisiblePage) {
+                entry.getValue().cancel( true );
+                it.remove();
+                cancelled = true;
+            }
+        }
+        if (cancelled) stateChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName( int column ) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt( int rowIndex, int columnIndex ) {
+        int pageIndex = rowIndex / pageSize;
+        List<E> page = pages.get( pageIndex );
+        if (null == page) {
+            Throwable error = failures.get( pageIndex );
+            if (null != error) return getFailedValue( rowIndex, columnIndex, error );
+            requestPage( pageIndex );
+            return getPlaceholderValue( rowIndex, columnIndex );
+        }
+        int index = rowIndex % pageSize;
+        if (index >= page.size()) return getPlaceholderValue( rowIndex, columnIndex );
+        return getColumnValue( page.get( index ), columnIndex );
+    }
+
+    /**
+     * Remembers page asked by table, loads are submitted later, outside of table getters.
+     */
+    private void requestPage( int pageIndex ) {
+        if (loads.containsKey( pageIndex ) || null != countLoad || !requested.add( pageIndex ) || flushScheduled) return;
+        flushScheduled = true;
+        SwingUtilities.invokeLater( new Runnable() {
+            @Override
+            public void run() {
+                flushRequests();
+            }
+        } );
+    }
+
+    private void flushRequests() {
+        flushScheduled = false;
+        boolean wasLoading = isLoading();
+        for (Integer pageIndex : requested) {
+            boolean visible = firstVisiblePage < 0 || pageIndex >= firstVisiblePage && pageIndex <= lastVisiblePage;
+            if (!visible || null != countLoad || loads.containsKey( pageIndex )
+                    || pages.containsKey( pageIndex ) || failures.containsKey( pageIndex )) continue;
+            PageLoad load = new PageLoad( pageIndex, generation );
+            loads.put( pageIndex, load );
+            if (!submit( load )) loads.remove( pageIndex );
+        }
+        requested.clear();
+        if (wasLoading != isLoading()) stateChanged();
+    }
+
+    private boolean submit( Runnable task ) {
+        Executor current = null != executor ? executor : CommandExecutors.getDefault();
+        try {
+            current.execute( task );
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void pageLoaded( PageLoad load ) {
+        if (load.generation != generation || loads.get( load.pageIndex ) != load) return;
+        loads.remove( load.pageIndex );
+        List<E> page;
+        try {
+            page = load.get();
+        } catch (ExecutionException e) {
+            failures.put( load.pageIndex, e.getCause() );
+            int first = load.pageIndex * pageSize;
+            int last = Math.min( first + pageSize, rowCount ) - 1;
+            if (last >= first) fireTableRowsUpdated( first, last );
+            stateChanged();
+            onFetchFailed( first, e.getCause() );
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        pages.put( load.pageIndex, null != page ? page : new ArrayList<E>() );
+        int first = load.pageIndex * pageSize;
+        int last = Math.min( first + pageSize, rowCount ) - 1;
+        if (last >= first) fireTableRowsUpdated( first, last );
+        if (loads.isEmpty()) stateChanged();
+    }
+
+    private void countLoaded( CountLoad load ) {
+        if (load != countLoad) return;
+        countLoad = null;
+        int count;
+        try {
+            count = load.get();
+        } catch (ExecutionException e) {
+            stateChanged();
+            onFetchFailed( -1, e.getCause() );
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        rowCount = count;
+        fireTableDataChanged();
+        stateChanged();
+    }
+
+    void setViewModel( PagedDataViewModel<E> viewModel ) {
+        this.viewModel = viewModel;
+        stateChanged();
+        load();
+    }
+
+    private void stateChanged() {
+        if (null != viewModel) viewModel.update( rowCount, isLoading() );
+    }
+
+    private final class PageLoad extends FutureTask<List<E>> {
+        final int pageIndex;
+        final int generation;
+
+        PageLoad( final int pageIndex, int generation ) {
+            super( new Callable<List<E>>() {
+                @Override
+                public List<E> call() {
+                    return provider.fetch( pageIndex * pageSize, pageSize );
+                }
+            } );
+            this.pageIndex = pageIndex;
+            this.generation = generation;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) return;
+            SwingUtilities.invokeLater( new Runnable() {
+                @Override
+                public void run() {
+                    pageLoaded( PageLoad.this );
+                }
+            } );
+        }
+    }
+
+    private final class CountLoad extends FutureTask<Integer> {
+
+        CountLoad() {
+            super( new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return provider.count();
+                }
+            } );
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) return;
+            SwingUtilities.invokeLater( new Runnable() {
+                @Override
+                public void run() {
+                    countLoaded( CountLoad.this );
+                }
+            } );
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package swingmvc.core;
+
+import java.util.function.Supplier;
+
+/**
+ * Module that shows large data set in table, loading rows by pages from {@link IPagedDataProvider}.
+ * Set {@link PagedDataViewModel} as model to show data.
+ * @author elwood
+ */
+public class PagedTableModule<E> extends JPanelModule<PagedTableView, PagedDataViewModel<E>, PagedTableController<E>> {
+
+    private static final Supplier<PagedTableView> VIEW_FACTORY = new Supplier<PagedTableView>() {
+        @Override
+        public PagedTableView get() {
+            return new PagedTableView();
+        }
+    };
+
+    public PagedTableModule() {
+        super( VIEW_FACTORY, PagedTableModule.<E>defaultControllerFactory() );
+    }
+
+    /**
+     * Creates module with custom controller.
+     * @param controllerFactory Creates controller, usually subclass of {@link PagedTableController}
+     */
+    public PagedTableModule( Supplier<PagedTableController<E>> controllerFactory ) {
+        super( VIEW_FACTORY, controllerFactory );
+    }
+
+    private static <E> Supplier<PagedTableController<E>> defaultControllerFactory() {
+        return new Supplier<PagedTableController<E>>() {
+            @Override
+            public PagedTableController<E> get() {
+                return new PagedTableController<E>();
+            }
+        };
+    }
+}
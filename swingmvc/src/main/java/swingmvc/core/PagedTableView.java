@@ -0,0 +1,22 @@
+package swingmvc.core;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * View of {@link PagedTableModule}: table inside scroll pane.
+ * @author elwood
+ */
+public class PagedTableView extends JPanel {
+
+    public final JTable table;
+    public final JScrollPane scrollPane;
+
+    public PagedTableView() {
+        super( new BorderLayout() );
+        table = new JTable();
+        table.setFillsViewportHeight( true );
+        scrollPane = new JScrollPane( table );
+        add( scrollPane, BorderLayout.CENTER );
+    }
+}
@@ -0,0 +1,68 @@
+package swingmvc.core;
+
+/**
+ * Typed key of view model property with direct (reflection-free) access to its value.
+ * Instances are generated by swingmvc-processor for fields marked by {@link ObservableProperty}.
+ * Keys are compared by identity, {@link #getId()} is unique in view model class hierarchy
+ * (ids of subclass continue after ids of superclasses) and can be used in switch statements.
+ * @author elwood
+ */
+public abstract class PropertyKey<TModel extends ViewModel, T> {
+
+    private final String name;
+    private final int id;
+    private final Class<?> type;
+
+    /**
+     * @param name Name of property used in change notifications
+     * @param id Index of property in its view model class hierarchy
+     * @param type Declared type of field
+     */
+    protected PropertyKey( String name, int id, Class<?> type ) {
+        this.name = name;
+        this.id = id;
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Returns value of property.
+     */
+    public abstract T get( TModel model );
+
+    /**
+     * Writes value to the field without notification.
+     * @throws IllegalArgumentException If value is null and field is primitive
+     */
+    protected abstract void write( TModel model, T value );
+
+    /**
+     * Sets value of property and raises property change if value is really changed.
+     * Values are compared using {@link Object#equals(Object)}.
+     * @return true if value was changed
+     * @throws IllegalArgumentException If value is null and field is primitive
+     */
+    public boolean set( TModel model, T value ) {
+        T oldValue = get( model );
+        if (oldValue == null ? value == null : oldValue.equals( value )) return false;
+        write( model, value );
+        model.raisePropertyChange( name, oldValue, value );
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
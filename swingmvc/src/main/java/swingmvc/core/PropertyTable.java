@@ -0,0 +1,16 @@
+package swingmvc.core;
+
+import java.util.List;
+
+/**
+ * Table of {@link PropertyKey} constants of one view model class.
+ * Implementations are generated by swingmvc-processor (named as view model class with "_Properties" suffix)
+ * and picked up by framework automatically to access properties without reflection.
+ * @author elwood
+ */
+public interface PropertyTable<TModel extends ViewModel> {
+    /**
+     * Returns keys of all properties declared in view model class, in order of their ids.
+     */
+    List<PropertyKey<TModel, ?>> keys();
+}
@@ -0,0 +1,538 @@
+package swingmvc.core;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+
+/**
+ * Persists window geometry and view model state between application runs.
+ * <p>
+ * Typical usage: call {@link #load()} on startup, register modules (or windows and view models) before their
+ * windows are shown - saved state is applied on registration, or when registered module gets its model -
+ * and call {@link #close()} on shutdown.
+ * State can be saved periodically, see {@link #setAutosaveInterval(int)}.
+ * <p>
+ * State is kept in binary file with versioned header and index of sections. File is read into memory on load
+ * (it is not mapped, so it can be replaced on save on any platform), and only sections of registered keys are decoded.
+ * Sections of keys not registered in current session are preserved on save. View model state includes read-write properties of type String, primitive wrappers and enums,
+ * other properties are not saved.
+ * <p>
+ * State is captured on the calling thread (should be the Event Dispatch Thread), file is written on background thread.
+ * Write failures are reported to handler set by {@link #setFailureHandler(Consumer)}.
+ * Store should be used on the Event Dispatch Thread.
+ * @author elwood
+ */
+public final class SessionStore {
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x53574D53;
+    private static final byte WINDOW = 1;
+    private static final byte MODEL = 2;
+
+    private static final byte NULL = 0;
+    private static final byte BOOLEAN = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte STRING = 6;
+    private static final byte ENUM = 7;
+
+    private static final Charset UTF8 = Charset.forName( "UTF-8" );
+
+    private final File file;
+    private final Map<String, Window> windows = new LinkedHashMap<String, Window>();
+    // view models or modules which models are saved
+    private final Map<String, Object> models = new LinkedHashMap<String, Object>();
+    // sections of loaded file that are not applied yet
+    private final Map<String, byte[]> loadedWindows = new LinkedHashMap<String, byte[]>();
+    private final Map<String, byte[]> loadedModels = new LinkedHashMap<String, byte[]>();
+    private volatile byte[] lastWritten;
+    private Consumer<? super IOException> failureHandler;
+    private Timer autosaveTimer;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor( new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread( r, "swingmvc-session-writer" );
+            thread.setDaemon( true );
+            return thread;
+        }
+    } );
+
+    public SessionStore( File file ) {
+        if (null == file) throw new IllegalArgumentException( "file is null" );
+        this.file = file;
+    }
+
+    /**
+     * Reads session file and copies its sections. Sections are decoded later, when their keys are registered.
+     * @return false if file does not exist, has unknown version or is corrupted (then it is ignored)
+     */
+    public boolean load() {
+        loadedWindows.clear();
+        loadedModels.clear();
+        if (!file.isFile() || file.length() == 0) return false;
+        byte[] data;
+        try {
+            data = Files.readAllBytes( file.toPath() );
+        } catch (IOException e) {
+            throw new RuntimeException( String.format( "Can not read session file %s", file ), e );
+        }
+        ByteBuffer buffer = ByteBuffer.wrap( data );
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) return false;
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                byte kind = buffer.get();
+                String key = readString( buffer );
+                int offset = buffer.getInt();
+                int length = buffer.getInt();
+                if (offset < 0 || length < 0 || length > data.length - offset)
+                    throw new IllegalArgumentException( "Section is out of file" );
+                // sections of unknown kinds written by future versions are skipped
+                if (kind == WINDOW) loadedWindows.put( key, Arrays.copyOfRange( data, offset, offset + length ) );
+                else if (kind == MODEL) loadedModels.put( key, Arrays.copyOfRange( data, offset, offset + length ) );
+            }
+        } catch (BufferUnderflowException e) {
+            loadedWindows.clear();
+            loadedModels.clear();
+            return false;
+        } catch (IllegalArgumentException e) {
+            loadedWindows.clear();
+            loadedModels.clear();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Registers window and model of frame module, and applies their saved state.
+     * If module has no model yet, saved state is applied to the first model set.
+     */
+    public void register( String key, JFrameModule<?, ?, ?> module ) {
+        register( key, module.getView() );
+        registerModel( key, module );
+    }
+
+    /**
+     * Registers window and model of dialog module, and applies their saved state.
+     * If module has no model yet, saved state is applied to the first model set.
+     */
+    public void register( String key, JDialogModule<?, ?, ?> module ) {
+        register( key, module.getView() );
+        registerModel( key, module );
+    }
+
+    /**
+     * Registers window and applies its saved bounds (and extended state of frame).
+     */
+    public void register( String key, Window window ) {
+        if (null == key) throw new IllegalArgumentException( "key is null" );
+        if (null == window) throw new IllegalArgumentException( "window is null" );
+        windows.put( key, window );
+        byte[] section = loadedWindows.remove( key );
+        if (null == section) return;
+        try {
+            restoreWindow( window, ByteBuffer.wrap( section ) );
+        } catch (BufferUnderflowException e) {
+            // corrupted section is ignored
+        }
+    }
+
+    /**
+     * Registers view model and applies its saved property values.
+     */
+    public void register( String key, ViewModel model ) {
+        if (null == model) throw new IllegalArgumentException( "model is null" );
+        registerModel( key, model );
+    }
+
+    private void registerModel( final String key, Object owner ) {
+        if (null == key) throw new IllegalArgumentException( "key is null" );
+        models.put( key, owner );
+        Controller<?, ?> controller = controllerOf( owner );
+        if (null != controller) {
+            controller.setModelChangedHook( new Runnable() {
+                @Override
+                public void run() {
+                    applyLoadedModel( key );
+                }
+            } );
+        }
+        applyLoadedModel( key );
+    }
+
+    /**
+     * Applies loaded state of key to its model, if model exists and state was not applied yet.
+     */
+    private void applyLoadedModel( String key ) {
+        Object owner = models.get( key );
+        ViewModel model = null != owner ? modelOf( owner ) : null;
+        // state of module without model yet is kept until model is set
+        if (null == model) return;
+        byte[] section = loadedModels.remove( key );
+        if (null == section) return;
+        try {
+            restoreModel( model, ByteBuffer.wrap( section ) );
+        } catch (BufferUnderflowException e) {
+            // corrupted section is ignored, properties restored before it are kept
+        } catch (IllegalArgumentException e) {
+            // the same
+        }
+    }
+
+    /**
+     * Stops saving state of window and model registered with specified key. Saved state of key is dropped on next save.
+     */
+    public void unregister( String key ) {
+        windows.remove( key );
+        Controller<?, ?> controller = controllerOf( models.remove( key ) );
+        if (null != controller) controller.setModelChangedHook( null );
+    }
+
+    /**
+     * Sets handler called on the Event Dispatch Thread when session file can not be written.
+     * By default exception is rethrown on the Event Dispatch Thread.
+     * @param handler Handler or null to use default one
+     */
+    public void setFailureHandler( Consumer<? super IOException> handler ) {
+        this.failureHandler = handler;
+    }
+
+    /**
+     * Captures state of registered windows and models and writes it to file on background thread.
+     * Nothing is written if state is not changed since previous save.
+     * @return Future completed when file is written, failures are also reported to failure handler
+     */
+    public Future<?> save() {
+        final byte[] data = encode();
+        if (Arrays.equals( data, lastWritten )) return CompletableFuture.completedFuture( null );
+        lastWritten = data;
+        return writer.submit( new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    write( data );
+                } catch (IOException e) {
+                    // next save should retry
+                    lastWritten = null;
+                    reportFailure( e );
+                    throw new RuntimeException( String.format( "Can not write session file %s", file ), e );
+                }
+            }
+        } );
+    }
+
+    /**
+     * Saves state every specified interval using Swing timer.
+     * @param millis Interval in milliseconds, 0 disables autosave
+     */
+    public void setAutosaveInterval( int millis ) {
+        if (millis < 0) throw new IllegalArgumentException( "millis should not be negative" );
+        if (null != autosaveTimer) {
+            autosaveTimer.stop();
+            autosaveTimer = null;
+        }
+        if (millis == 0) return;
+        autosaveTimer = new Timer( millis, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                save();
+            }
+        } );
+        autosaveTimer.start();
+    }
+
+    /**
+     * Stops autosave, saves state and waits until file is written.
+     */
+    public void close() {
+        setAutosaveInterval( 0 );
+        try {
+            save().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // failure is reported to failure handler
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    private void reportFailure( final IOException error ) {
+        SwingUtilities.invokeLater( new Runnable() {
+            @Override
+            public void run() {
+                if (null != failureHandler) {
+                    failureHandler.accept( error );
+                    return;
+                }
+                throw new RuntimeException( String.format( "Can not write session file %s", file ), error );
+            }
+        } );
+    }
+
+    private static ViewModel modelOf( Object owner ) {
+        if (owner instanceof ViewModel) return (ViewModel) owner;
+        if (owner instanceof JFrameModule) return ((JFrameModule<?, ?, ?>) owner).getModel();
+        return ((JDialogModule<?, ?, ?>) owner).getModel();
+    }
+
+    private static Controller<?, ?> controllerOf( Object owner ) {
+        if (owner instanceof JFrameModule) return ((JFrameModule<?, ?, ?>) owner).getController();
+        if (owner instanceof JDialogModule) return ((JDialogModule<?, ?, ?>) owner).getController();
+        return null;
+    }
+
+    private byte[] encode() {
+        List<String> keys = new ArrayList<String>();
+        List<Byte> kinds = new ArrayList<Byte>();
+        List<byte[]> sections = new ArrayList<byte[]>();
+        for (Map.Entry<String, Window> entry : windows.entrySet()) {
+            keys.add( entry.getKey() );
+            kinds.add( WINDOW );
+            sections.add( encodeWindow( entry.getValue() ) );
+        }
+        for (Map.Entry<String, Object> entry : models.entrySet()) {
+            ViewModel model = modelOf( entry.getValue() );
+            // loaded state that was not applied to model yet is kept
+            if (null == model || loadedModels.containsKey( entry.getKey() )) continue;
+            keys.add( entry.getKey() );
+            kinds.add( MODEL );
+            sections.add( encodeModel( model ) );
+        }
+        // keep state of keys that were not registered in this session
+        for (Map.Entry<String, byte[]> entry : loadedWindows.entrySet()) {
+            keys.add( entry.getKey() );
+            kinds.add( WINDOW );
+            sections.add( entry.getValue() );
+        }
+        for (Map.Entry<String, byte[]> entry : loadedModels.entrySet()) {
+            keys.add( entry.getKey() );
+            kinds.add( MODEL );
+            sections.add( entry.getValue() );
+        }
+        try {
+            byte[][] keyBytes = new byte[keys.size()][];
+            int offset = 4 + 2 + 4;
+            for (int i = 0; i < keys.size(); i++) {
+                keyBytes[i] = keys.get( i ).getBytes( UTF8 );
+                offset += 1 + 4 + keyBytes[i].length + 4 + 4;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream( bytes );
+            out.writeInt( MAGIC );
+            out.writeShort( VERSION );
+            out.writeInt( keys.size() );
+            for (int i = 0; i < keys.size(); i++) {
+                out.writeByte( kinds.get( i ) );
+                out.writeInt( keyBytes[i].length );
+                out.write( keyBytes[i] );
+                out.writeInt( offset );
+                out.writeInt( sections.get( i ).length );
+                offset += sections.get( i ).length;
+            }
+            for (byte[] section : sections) {
+                out.write( section );
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException( e );
+        }
+    }
+
+    private static byte[] encodeWindow( Window window ) {
+        Rectangle bounds = window.getBounds();
+        int state = window instanceof Frame ? ((Frame) window).getExtendedState() : Frame.NORMAL;
+        ByteBuffer buffer = ByteBuffer.allocate( 5 * 4 );
+        buffer.putInt( bounds.x ).putInt( bounds.y ).putInt( bounds.width ).putInt( bounds.height ).putInt( state );
+        return buffer.array();
+    }
+
+    private static void restoreWindow( Window window, ByteBuffer buffer ) {
+        Rectangle bounds = new Rectangle( buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt() );
+        int state = buffer.getInt();
+        if (bounds.width <= 0 || bounds.height <= 0) return;
+        if (isOnScreen( bounds )) {
+            window.setBounds( bounds );
+        } else {
+            // screen configuration changed, keep default location
+            window.setSize( bounds.width, bounds.height );
+        }
+        if (window instanceof Frame) ((Frame) window).setExtendedState( state & ~Frame.ICONIFIED );
+    }
+
+    private static boolean isOnScreen( Rectangle bounds ) {
+        if (GraphicsEnvironment.isHeadless()) return true;
+        for (GraphicsDevice device : GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices()) {
+            if (device.getDefaultConfiguration().getBounds().intersects( bounds )) return true;
+        }
+        return false;
+    }
+
+    private static byte[] encodeModel( ViewModel model ) {
+        ViewModelAccessors accessors = model.getAccessors();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        try {
+            int count = 0;
+            ByteArrayOutputStream values = new ByteArrayOutputStream();
+            DataOutputStream valuesOut = new DataOutputStream( values );
+            for (int i = 0; i < accessors.size(); i++) {
+                if (writeProperty( valuesOut, accessors.name( i ), accessors.get( model, i ) )) count++;
+            }
+            out.writeInt( count );
+            valuesOut.flush();
+            values.writeTo( out );
+            out.flush();
+        } catch (IOException e) {
+            throw new RuntimeException( e );
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return false if value type is not supported
+     */
+    private static boolean writeProperty( DataOutputStream out, String name, Object value ) throws IOException {
+        byte tag;
+        if (null == value) tag = NULL;
+        else if (value instanceof Boolean) tag = BOOLEAN;
+        else if (value instanceof Integer) tag = INT;
+        else if (value instanceof Long) tag = LONG;
+        else if (value instanceof Double) tag = DOUBLE;
+        else if (value instanceof Float) tag = FLOAT;
+        else if (value instanceof String) tag = STRING;
+        else if (value instanceof Enum) tag = ENUM;
+        else return false;
+        writeString( out, name );
+        out.writeByte( tag );
+        switch (tag) {
+            case BOOLEAN: out.writeBoolean( (Boolean) value ); break;
+            case INT: out.writeInt( (Integer) value ); break;
+            case LONG: out.writeLong( (Long) value ); break;
+            case DOUBLE: out.writeDouble( (Double) value ); break;
+            case FLOAT: out.writeFloat( (Float) value ); break;
+            case STRING: writeString( out, (String) value ); break;
+            case ENUM:
+                writeString( out, ((Enum<?>) value).getDeclaringClass().getName() );
+                writeString( out, ((Enum<?>) value).name() );
+                break;
+            default: break;
+        }
+        return true;
+    }
+
+    private static void restoreModel( ViewModel model, ByteBuffer buffer ) {
+        ViewModelAccessors accessors = model.getAccessors();
+        model.beginBatch();
+        try {
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                String name = readString( buffer );
+                byte tag = buffer.get();
+                Object value;
+                switch (tag) {
+                    case NULL: value = null; break;
+                    case BOOLEAN: value = buffer.get() != 0; break;
+                    case INT: value = buffer.getInt(); break;
+                    case LONG: value = buffer.getLong(); break;
+                    case DOUBLE: value = buffer.getDouble(); break;
+                    case FLOAT: value = buffer.getFloat(); break;
+                    case STRING: value = readString( buffer ); break;
+                    case ENUM: value = enumValue( model, readString( buffer ), readString( buffer ) ); break;
+                    // values written by future versions can not be skipped
+                    default: return;
+                }
+                int index = accessors.indexOf( name );
+                if (index < 0 || (tag == ENUM && null == value)) continue;
+                Object current = accessors.get( model, index );
+                if (value == null ? current == null : value.equals( current )) continue;
+                try {
+                    accessors.set( model, index, value );
+                } catch (ClassCastException e) {
+                    // property type was changed since state was saved
+                } catch (NullPointerException e) {
+                    // property became primitive
+                } catch (IllegalArgumentException e) {
+                    // the same, generated keys reject null values of primitive fields
+                }
+            }
+        } finally {
+            model.commitBatch();
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumValue( ViewModel model, String className, String name ) {
+        try {
+            Class enumClass = Class.forName( className, false, model.getClass().getClassLoader() );
+            return Enum.valueOf( enumClass, name );
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeString( DataOutputStream out, String value ) throws IOException {
+        byte[] bytes = value.getBytes( UTF8 );
+        out.writeInt( bytes.length );
+        out.write( bytes );
+    }
+
+    private static String readString( ByteBuffer buffer ) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) throw new IllegalArgumentException( "String is out of section" );
+        byte[] bytes = new byte[length];
+        buffer.get( bytes );
+        return new String( bytes, UTF8 );
+    }
+
+    /**
+     * Writes data to temporary file and replaces session file by it, so file is never left half-written.
+     */
+    private void write( byte[] data ) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (null != directory && !directory.isDirectory() && !directory.mkdirs())
+            throw new IOException( String.format( "Can not create directory %s", directory ) );
+        File temp = new File( file.getAbsolutePath() + ".tmp" );
+        OutputStream out = new FileOutputStream( temp );
+        try {
+            out.write( data );
+        } finally {
+            out.close();
+        }
+        try {
+            Files.move( temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move( temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package swingmvc.core;
+
+import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Undo/redo journal of view model property changes.
+ * <p>
+ * Journal records changes raised with old and new values (see {@link ViewModel#raisePropertyChange(String, Object, Object)}),
+ * it includes properties set via generated {@link PropertyKey}s and atomic {@code setProperty} overloads.
+ * Changes raised only by name, and changes of properties without public getter and setter, can not be undone
+ * and are not recorded.
+ * <p>
+ * Steps are stored in bounded ring buffer: when number of steps exceeds capacity or estimated memory
+ * of stored values exceeds memory limit, the oldest steps are dropped. All changes of one model made inside
+ * the same batch (see {@link ViewModel#beginBatch()}) are merged into one step, and consecutive changes
+ * of the same property made within merge interval (for example, typing into bound text field) are merged too.
+ * <p>
+ * Undo and redo are available as commands, they can be registered in controller and bound to buttons:
+ * <pre>
+ * registerCommand("undo", journal.undoCommand());
+ * bindButtonToCommand(view.undoButton, "undo");
+ * journal.addChangeListener(new ChangeListener() {
+ *     public void stateChanged(ChangeEvent e) { refreshCanExecuteCommand("undo"); }
+ * });
+ * </pre>
+ * @author elwood
+ */
+public final class UndoJournal implements IPropertyValueListener {
+    public static final int DEFAULT_CAPACITY = 100;
+    public static final long DEFAULT_MEMORY_LIMIT = 1024 * 1024;
+    public static final int DEFAULT_MERGE_INTERVAL = 500;
+
+    private static final ChangeListener[] NO_LISTENERS = new ChangeListener[0];
+    // estimated size of entry object with references and header
+    private static final int ENTRY_SIZE = 32;
+    private static final int STEP_SIZE = 48;
+
+    private final Object lock = new Object();
+    private final Step[] steps;
+    private final long memoryLimit;
+    private int mergeInterval = DEFAULT_MERGE_INTERVAL;
+    // index of the oldest step in ring buffer
+    private int head = 0;
+    // number of stored steps
+    private int size = 0;
+    // number of steps that can be undone, steps after position can be redone
+    private int position = 0;
+    private long estimatedSize = 0;
+    // the last recorded step while next changes can be merged into it
+    private Step open;
+    // thread that writes values of undone or redone step, its changes are not recorded
+    private volatile Thread applyingThread;
+    private final List<ViewModel> models = new ArrayList<ViewModel>();
+    private volatile ChangeListener[] listeners = NO_LISTENERS;
+
+    private final ICommand undoCommand = new ICommand() {
+        @Override
+        public boolean canExecute() {
+            return canUndo();
+        }
+
+        @Override
+        public void execute() {
+            undo();
+        }
+    };
+
+    private final ICommand redoCommand = new ICommand() {
+        @Override
+        public boolean canExecute() {
+            return canRedo();
+        }
+
+        @Override
+        public void execute() {
+            redo();
+        }
+    };
+
+    public UndoJournal() {
+        this(DEFAULT_CAPACITY, DEFAULT_MEMORY_LIMIT);
+    }
+
+    /**
+     * @param capacity Maximum number of undo steps
+     * @param memoryLimit Maximum estimated size of stored values in bytes
+     */
+    public UndoJournal( int capacity, long memoryLimit ) {
+        if (capacity <= 0) throw new IllegalArgumentException( "capacity should be positive" );
+        if (memoryLimit <= 0) throw new IllegalArgumentException( "memoryLimit should be positive" );
+        this.steps = new Step[capacity];
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * Starts recording changes of specified model.
+     */
+    public void attach( ViewModel model ) {
+        if (null == model) throw new IllegalArgumentException( "model is null" );
+        synchronized (lock) {
+            if (models.contains( model )) return;
+            models.add( model );
+        }
+        model.addPropertyValueListener( this );
+    }
+
+    /**
+     * Stops recording changes of specified model. Already recorded steps are kept.
+     */
+    public void detach( ViewModel model ) {
+        synchronized (lock) {
+            if (!models.remove( model )) return;
+            open = null;
+        }
+        model.removePropertyValueListener( this );
+    }
+
+    /**
+     * Sets maximum interval between consecutive changes of the same property that are merged into one step.
+     * @param millis Interval in milliseconds, 0 disables merging of changes made outside batches
+     */
+    public void setMergeInterval( int millis ) {
+        if (millis < 0) throw new IllegalArgumentException( "millis should not be negative" );
+        synchronized (lock) {
+            mergeInterval = millis;
+        }
+    }
+
+    /**
+     * Closes the last step, so next change starts new step even if it could be merged.
+     */
+    public void closeStep() {
+        synchronized (lock) {
+            open = null;
+        }
+    }
+
+    @Override
+    public void propertyValueChanged( ViewModel source, String propName, Object oldValue, Object newValue ) {
+        if (null == propName || applyingThread == Thread.currentThread()) return;
+        // undo writes values via accessors, so properties without them can't be undone
+        if (source.getAccessors().indexOf( propName ) < 0) return;
+        int serial = source.isInBatch() ? source.getBatchSerial() : 0;
+        long now = System.nanoTime();
+        synchronized (lock) {
+            Step step = open;
+            boolean merge = null != step && step.model == source && (0 != serial
+                    ? step.serial == serial
+                    : 0 == step.serial && 1 == step.count && step.names[0].equals( propName )
+                        && now - step.time <= mergeInterval * 1000000L);
+            if (merge) {
+                estimatedSize -= step.estimatedSize;
+                step.record( propName, oldValue, newValue );
+            } else {
+                discardRedo();
+                step = new Step( source, serial );
+                step.record( propName, oldValue, newValue );
+                if (size == steps.length) dropOldest();
+                steps[(head + size) % steps.length] = step;
+                size++;
+                position = size;
+                open = step;
+            }
+            step.time = now;
+            estimatedSize += step.estimatedSize;
+            while (estimatedSize > memoryLimit && size > 1) {
+                dropOldest();
+            }
+        }
+        fireChanged();
+    }
+
+    private void discardRedo() {
+        while (size > position) {
+            int index = (head + size - 1) % steps.length;
+            estimatedSize -= steps[index].estimatedSize;
+            steps[index] = null;
+            size--;
+        }
+    }
+
+    private void dropOldest() {
+        estimatedSize -= steps[head].estimatedSize;
+        if (open == steps[head]) open = null;
+        steps[head] = null;
+        head = (head + 1) % steps.length;
+        size--;
+        position--;
+    }
+
+    public boolean canUndo() {
+        synchronized (lock) {
+            return position > 0;
+        }
+    }
+
+    public boolean canRedo() {
+        synchronized (lock) {
+            return position < size;
+        }
+    }
+
+    /**
+     * Reverts the last step by writing old values of its properties.
+     * @return false if there is nothing to undo (or undo or redo is in progress)
+     */
+    public boolean undo() {
+        Step step;
+        synchronized (lock) {
+            if (0 == position || null != applyingThread) return false;
+            step = steps[(head + position - 1) % steps.length];
+            open = null;
+            applyingThread = Thread.currentThread();
+        }
+        apply( step, true );
+        synchronized (lock) {
+            // step could be dropped or followed by changes recorded from other threads while it was applied
+            if (position > 0 && steps[(head + position - 1) % steps.length] == step) position--;
+        }
+        fireChanged();
+        return true;
+    }
+
+    /**
+     * Repeats the last undone step by writing new values of its properties.
+     * @return false if there is nothing to redo (or undo or redo is in progress)
+     */
+    public boolean redo() {
+        Step step;
+        synchronized (lock) {
+            if (position == size || null != applyingThread) return false;
+            step = steps[(head + position) % steps.length];
+            open = null;
+            applyingThread = Thread.currentThread();
+        }
+        apply( step, false );
+        synchronized (lock) {
+            if (position < size && steps[(head + position) % steps.length] == step) position++;
+        }
+        fireChanged();
+        return true;
+    }
+
+    /**
+     * Writes values of step outside of journal lock, so model listeners can use journal.
+     * If writing fails, position of journal is not changed.
+     */
+    private void apply( Step step, boolean undo ) {
+        ViewModelAccessors accessors = step.model.getAccessors();
+        try {
+            step.model.beginBatch();
+            try {
+                for (int i = 0; i < step.count; i++) {
+                    int entry = undo ? step.count - 1 - i : i;
+                    accessors.set( step.model, accessors.indexOf( step.names[entry] ), undo ? step.oldValues[entry] : step.newValues[entry] );
+                }
+            } finally {
+                step.model.commitBatch();
+            }
+        } finally {
+            applyingThread = null;
+        }
+    }
+
+    /**
+     * Removes all recorded steps.
+     */
+    public void clear() {
+        synchronized (lock) {
+            for (int i = 0; i < steps.length; i++) steps[i] = null;
+            head = 0;
+            size = 0;
+            position = 0;
+            estimatedSize = 0;
+            open = null;
+        }
+        fireChanged();
+    }
+
+    public int getUndoCount() {
+        synchronized (lock) {
+            return position;
+        }
+    }
+
+    public int getRedoCount() {
+        synchronized (lock) {
+            return size - position;
+        }
+    }
+
+    /**
+     * Returns estimated size of stored steps in bytes.
+     */
+    public long getEstimatedSize() {
+        synchronized (lock) {
+            return estimatedSize;
+        }
+    }
+
+    /**
+     * Returns command that calls {@link #undo()}, available when there is something to undo.
+     */
+    public ICommand undoCommand() {
+        return undoCommand;
+    }
+
+    /**
+     * Returns command that calls {@link #redo()}, available when there is something to redo.
+     */
+    public ICommand redoCommand() {
+        return redoCommand;
+    }
+
+    /**
+     * Adds listener called on the Event Dispatch Thread when undo or redo availability can change.
+     */
+    public void addChangeListener( ChangeListener listener ) {
+        if (null == listener) throw new IllegalArgumentException( "listener is null" );
+        synchronized (lock) {
+            ChangeListener[] current = listeners;
+            ChangeListener[] updated = new ChangeListener[current.length + 1];
+            System.arraycopy( current, 0, updated, 0, current.length );
+            updated[current.length] = listener;
+            listeners = updated;
+        }
+    }
+
+    public void removeChangeListener( ChangeListener listener ) {
+        synchronized (lock) {
+            ChangeListener[] current = listeners;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].equals( listener )) {
+                    ChangeListener[] updated = current.length == 1 ? NO_LISTENERS : new ChangeListener[current.length - 1];
+                    System.arraycopy( current, 0, updated, 0, i );
+                    System.arraycopy( current, i + 1, updated, i, current.length - i - 1 );
+                    listeners = updated;
+                    return;
+                }
+            }
+        }
+    }
+
+    private void fireChanged() {
+        if (0 == listeners.length) return;
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater( new Runnable() {
+                @Override
+                public void run() {
+                    fireChanged();
+                }
+            } );
+            return;
+        }
+        ChangeListener[] snapshot = listeners;
+        ChangeEvent event = new ChangeEvent( this );
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i].stateChanged( event );
+        }
+    }
+
+    /**
+     * Rough estimate of memory retained by value, used for memory limit only.
+     */
+    private static int estimateSize( Object value ) {
+        if (null == value) return 0;
+        if (value instanceof String) return 40 + 2 * ((String) value).length();
+        return 16;
+    }
+
+    /**
+     * Changes of one model that are undone and redone together.
+     */
+    private static final class Step {
+        final ViewModel model;
+        final int serial;
+        long time;
+        int count = 0;
+        String[] names = new String[1];
+        Object[] oldValues = new Object[1];
+        Object[] newValues = new Object[1];
+        long estimatedSize = STEP_SIZE;
+
+        Step( ViewModel model, int serial ) {
+            this.model = model;
+            this.serial = serial;
+        }
+
+        void record( String propName, Object oldValue, Object newValue ) {
+            for (int i = 0; i < count; i++) {
+                if (names[i].equals( propName )) {
+                    // keep the first old value, replace new value
+                    estimatedSize += estimateSize( newValue ) - estimateSize( newValues[i] );
+                    newValues[i] = newValue;
+                    return;
+                }
+            }
+            if (count == names.length) {
+                int length = count * 2;
+                String[] newNames = new String[length];
+                Object[] newOld = new Object[length];
+                Object[] newNew = new Object[length];
+                System.arraycopy( names, 0, newNames, 0, count );
+                System.arraycopy( oldValues, 0, newOld, 0, count );
+                System.arraycopy( newValues, 0, newNew, 0, count );
+                names = newNames;
+                oldValues = newOld;
+                newValues = newNew;
+            }
+            names[count] = propName;
+            oldValues[count] = oldValue;
+            newValues[count] = newValue;
+            count++;
+            estimatedSize += ENTRY_SIZE + estimateSize( oldValue ) + estimateSize( newValue );
+        }
+    }
+}
@@ -1,30 +1,570 @@
-package swingmvc.core;
-
-import binding.INotifyPropertyChanged;
-import binding.IPropertyChangedListener;
-import java.util.ArrayList;
-import java.util.List;
-
-/**
- * Base class for view models.
- * @author elwood
- */
-public class ViewModel implements INotifyPropertyChanged {
-    
-    protected void raisePropertyChange( String propName) {
-        for ( IPropertyChangedListener listener : listeners ) {
-            listener.propertyChanged( propName );
-        }
-    }
-
-    private List<IPropertyChangedListener> listeners = new ArrayList<IPropertyChangedListener>(  );
-
-    public void addPropertyChangedListener( IPropertyChangedListener listener ) {
-        listeners.add( listener );
-    }
-
-    public void removePropertyChangedListener( IPropertyChangedListener listener ) {
-        listeners.remove( listener );
-    }
-
-}
+package swingmvc.core;
+
+import binding.INotifyPropertyChanged;
+import binding.IPropertyChangedListener;
+
+import javax.swing.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Base class for view models.
+ * <p>
+ * View model can be used from several threads. Listeners are stored in copy-on-write array,
+ * so they can be added and removed at any moment, including from notification handler.
+ * Listeners added by {@link #addWeakPropertyChangedListener(IPropertyChangedListener)} are weakly referenced
+ * and do not prevent their garbage collection.
+ * By default listeners are called synchronously on the thread that raised the change,
+ * in order of registration. Use {@link #setNotificationExecutor(Executor)} to deliver
+ * notifications on another thread, for example {@link #EDT} for models
+ * that are changed from background threads and bound to Swing components.
+ * Models updated with high frequency can use conflation mode (see {@link #setConflationInterval(int)}).
+ * <p>
+ * View model can track read-write properties changed since the last {@link #checkpoint()} (enabled on first use, see {@link #isDirty()}),
+ * and its state can be captured by {@link #snapshot()} and written to another model by {@link ViewModelSnapshot#applyTo(ViewModel)}.
+ * @author elwood
+ */
+public class ViewModel implements INotifyPropertyChanged {
+    
+    /**
+     * Executor that delivers notifications on the Event Dispatch Thread.
+     * Notifications raised on EDT are delivered immediately, others are posted via {@link SwingUtilities#invokeLater(Runnable)}.
+     */
+    public static final Executor EDT = new Executor() {
+        @Override
+        public void execute( Runnable command ) {
+            if (SwingUtilities.isEventDispatchThread()) {
+                command.run();
+            } else {
+                SwingUtilities.invokeLater( command );
+            }
+        }
+    };
+    
+    /**
+     * Conflation interval that delivers changes at most once per frame at 60 FPS.
+     */
+    public static final int FRAME_INTERVAL = 16;
+
+    private static final IPropertyChangedListener[] NO_LISTENERS = new IPropertyChangedListener[0];
+    private static final IPropertyValueListener[] NO_VALUE_LISTENERS = new IPropertyValueListener[0];
+    
+    private final Object lock = new Object();
+    private volatile IPropertyChangedListener[] listeners = NO_LISTENERS;
+    private final ReferenceQueue<IPropertyChangedListener> collectedListeners = new ReferenceQueue<IPropertyChangedListener>();
+    private volatile Executor notificationExecutor;
+    private final ViewModelMetrics metrics = Metrics.ENABLED ? Metrics.viewModel( getClass() ) : null;
+    private ViewModelMetrics.Instance metricsInstance;
+    
+    private volatile IPropertyValueListener[] valueListeners = NO_VALUE_LISTENERS;
+    
+    private volatile int batchDepth = 0;
+    private int batchSerial = 0;
+    private Set<String> pendingChanges;
+
+    private volatile int conflationInterval = 0;
+    private Set<String> dirtyProperties;
+    private boolean flushScheduled = false;
+    private volatile long lastFlushNanos;
+    private final AtomicLong conflatedUpdates = new AtomicLong();
+    private final Flush flush = new Flush();
+
+    private ViewModelAccessors accessors;
+    // bits of properties changed since checkpoint, indexed as in accessors table; null until tracking is enabled
+    private volatile AtomicLongArray modified;
+    
+    protected void raisePropertyChange( String propName) {
+        markModified( propName );
+        if (batchDepth > 0) {
+            synchronized (lock) {
+                if (batchDepth > 0) {
+                    if (null == pendingChanges) pendingChanges = new LinkedHashSet<String>();
+                    pendingChanges.add( propName );
+                    return;
+                }
+            }
+        }
+        if (conflationInterval > 0) {
+            conflate( propName );
+            return;
+        }
+        Executor executor = notificationExecutor;
+        if (null == executor) {
+            notifyListeners( propName );
+        } else {
+            executor.execute( new Notification( propName ) );
+        }
+    }
+
+    private void markModified( String propName ) {
+        AtomicLongArray words = modified;
+        if (null == words) return;
+        ViewModelAccessors table = getAccessors();
+        if (null == propName) {
+            // unknown set of properties changed
+            for (int w = 0; w < words.length(); w++) {
+                int bits = Math.min( 64, table.size() - w * 64 );
+                words.set( w, bits == 64 ? -1L : (1L << bits) - 1 );
+            }
+            return;
+        }
+        int index = table.indexOf( propName );
+        if (index < 0) return;
+        int w = index >>> 6;
+        long bit = 1L << index;
+        long current;
+        while (((current = words.get( w )) & bit) == 0) {
+            if (words.compareAndSet( w, current, current | bit )) return;
+        }
+    }
+
+    /**
+     * Returns dirty bits, enabling tracking on first call.
+     */
+    private AtomicLongArray tracking() {
+        AtomicLongArray words = modified;
+        if (null == words) {
+            synchronized (lock) {
+                words = modified;
+                if (null == words) {
+                    words = new AtomicLongArray( (getAccessors().size() + 63) >>> 6 );
+                    modified = words;
+                }
+            }
+        }
+        return words;
+    }
+
+    ViewModelAccessors getAccessors() {
+        ViewModelAccessors table = accessors;
+        if (null == table) {
+            table = ViewModelAccessors.forClass( getClass() );
+            accessors = table;
+        }
+        return table;
+    }
+
+    /**
+     * Returns true if any read-write property was changed since the last {@link #checkpoint()}.
+     * Property is considered changed when its change is raised, even if value was set back.
+     * Tracking is enabled by the first call of this method, {@link #checkpoint()} or {@link #getDirtyProperties()},
+     * changes raised before are not tracked.
+     */
+    public boolean isDirty() {
+        AtomicLongArray words = tracking();
+        for (int w = 0; w < words.length(); w++) {
+            if (0 != words.get( w )) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if specified property was changed since the last {@link #checkpoint()}.
+     */
+    public boolean isDirty( String propName ) {
+        AtomicLongArray words = tracking();
+        int index = getAccessors().indexOf( propName );
+        if (index < 0) return false;
+        return 0 != (words.get( index >>> 6 ) & (1L << index));
+    }
+
+    /**
+     * Returns names of properties changed since the last {@link #checkpoint()}.
+     */
+    public String[] getDirtyProperties() {
+        AtomicLongArray words = tracking();
+        ViewModelAccessors table = getAccessors();
+        List<String> names = new ArrayList<String>();
+        for (int w = 0; w < words.length(); w++) {
+            long word = words.get( w );
+            while (0 != word) {
+                int bit = Long.numberOfTrailingZeros( word );
+                names.add( table.name( w * 64 + bit ) );
+                word &= word - 1;
+            }
+        }
+        return names.toArray( new String[names.size()] );
+    }
+
+    /**
+     * Marks all properties as not changed, for example after model is loaded or saved.
+     * The first call enables tracking.
+     */
+    public void checkpoint() {
+        AtomicLongArray words = tracking();
+        for (int w = 0; w < words.length(); w++) {
+            words.set( w, 0 );
+        }
+    }
+
+    /**
+     * Captures current values of read-write properties.
+     */
+    public ViewModelSnapshot snapshot() {
+        return new ViewModelSnapshot( this, getAccessors() );
+    }
+
+    /**
+     * Raises property change and passes old and new values to value listeners
+     * (see {@link #addPropertyValueListener(IPropertyValueListener)}), for example to undo journal.
+     * Value listeners are called immediately on the calling thread, even inside the batch,
+     * then change is raised as {@link #raisePropertyChange(String)} does.
+     */
+    protected void raisePropertyChange( String propName, Object oldValue, Object newValue ) {
+        IPropertyValueListener[] snapshot = valueListeners;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i].propertyValueChanged( this, propName, oldValue, newValue );
+        }
+        raisePropertyChange( propName );
+    }
+
+    private void notifyListeners( String propName ) {
+        if (Metrics.ENABLED) metrics.propertyChanged( propName );
+        purgeCollectedListeners();
+        IPropertyChangedListener[] snapshot = listeners;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i].propertyChanged( propName );
+        }
+    }
+
+    private class Notification implements Runnable {
+        private final String propName;
+
+        Notification( String propName ) {
+            this.propName = propName;
+        }
+
+        @Override
+        public void run() {
+            notifyListeners( propName );
+        }
+    }
+
+    /**
+     * Marks property as changed and schedules delivery of changes on EDT.
+     */
+    private void conflate( String propName ) {
+        synchronized (lock) {
+            if (null == dirtyProperties) dirtyProperties = new LinkedHashSet<String>();
+            if (!dirtyProperties.add( propName )) {
+                conflatedUpdates.incrementAndGet();
+                if (Metrics.ENABLED) metrics.updateConflated();
+                return;
+            }
+            if (flushScheduled) return;
+            flushScheduled = true;
+        }
+        long delay = conflationInterval - (System.nanoTime() - lastFlushNanos) / 1000000L;
+        if (delay <= 0) {
+            SwingUtilities.invokeLater( flush );
+        } else {
+            Timer timer = new Timer( (int) delay, flush );
+            timer.setRepeats( false );
+            timer.start();
+        }
+    }
+
+    /**
+     * Delivers conflated changes on EDT.
+     */
+    private class Flush implements Runnable, ActionListener {
+        @Override
+        public void run() {
+            String[] changes;
+            synchronized (lock) {
+                changes = dirtyProperties.toArray( new String[dirtyProperties.size()] );
+                dirtyProperties.clear();
+                flushScheduled = false;
+                lastFlushNanos = System.nanoTime();
+            }
+            for (String propName : changes) {
+                notifyListeners( propName );
+            }
+        }
+
+        @Override
+        public void actionPerformed( ActionEvent e ) {
+            run();
+        }
+    }
+
+    /**
+     * Enables conflation mode. In this mode property changes (usually raised from background threads)
+     * are not delivered immediately: changed properties are collected, and listeners are notified
+     * on the Event Dispatch Thread at most once per interval, once per property regardless of how many
+     * times it was changed. Listeners read the latest values when notified.
+     * Notification executor is not used in this mode.
+     * @param millis Minimal interval between deliveries (see {@link #FRAME_INTERVAL}), or 0 to disable conflation
+     */
+    public void setConflationInterval( int millis ) {
+        if (millis < 0) throw new IllegalArgumentException( "millis should not be negative" );
+        this.conflationInterval = millis;
+    }
+
+    public int getConflationInterval() {
+        return conflationInterval;
+    }
+
+    /**
+     * Returns count of changes that were merged with already pending change of the same property in conflation mode.
+     */
+    public long getConflatedUpdateCount() {
+        return conflatedUpdates.get();
+    }
+
+    /**
+     * Sets executor used to deliver notifications to listeners.
+     * @param executor Executor or null to call listeners on the thread that raised the change
+     */
+    public void setNotificationExecutor( Executor executor ) {
+        this.notificationExecutor = executor;
+    }
+
+    public Executor getNotificationExecutor() {
+        return notificationExecutor;
+    }
+
+    /**
+     * Starts the batch of changes. Property change notifications raised inside the batch
+     * are held back until the outermost batch is committed, then delivered once per property
+     * in order of first change. Batches can be nested.
+     * Batch belongs to the view model, not to the thread: changes raised from other threads are held back too.
+     */
+    public void beginBatch() {
+        synchronized (lock) {
+            if (batchDepth++ == 0) batchSerial++;
+        }
+    }
+
+    /**
+     * Completes the batch started by {@link #beginBatch()}.
+     * When the outermost batch is committed, all held notifications are delivered to listeners.
+     * @throws IllegalStateException If there is no started batch
+     */
+    public void commitBatch() {
+        String[] changes;
+        synchronized (lock) {
+            if (batchDepth == 0) throw new IllegalStateException( "Batch is not started" );
+            if (--batchDepth > 0 || null == pendingChanges || pendingChanges.isEmpty()) return;
+            changes = pendingChanges.toArray( new String[pendingChanges.size()] );
+            pendingChanges.clear();
+        }
+        for (String propName : changes) {
+            raisePropertyChange( propName );
+        }
+    }
+
+    /**
+     * Runs action inside the batch, see {@link #beginBatch()}.
+     * Batch is committed even if action throws an exception.
+     */
+    public void batch( Runnable action ) {
+        beginBatch();
+        try {
+            action.run();
+        } finally {
+            commitBatch();
+        }
+    }
+
+    /**
+     * Returns true if there is an uncommitted batch.
+     */
+    public boolean isInBatch() {
+        return batchDepth > 0;
+    }
+
+    /**
+     * Returns serial number of current (or last) outermost batch. Changes raised inside the same batch have the same serial.
+     */
+    int getBatchSerial() {
+        synchronized (lock) {
+            return batchSerial;
+        }
+    }
+
+    public void addPropertyValueListener( IPropertyValueListener listener ) {
+        if (null == listener) throw new IllegalArgumentException( "listener is null" );
+        synchronized (lock) {
+            IPropertyValueListener[] current = valueListeners;
+            IPropertyValueListener[] updated = new IPropertyValueListener[current.length + 1];
+            System.arraycopy( current, 0, updated, 0, current.length );
+            updated[current.length] = listener;
+            valueListeners = updated;
+        }
+    }
+
+    public void removePropertyValueListener( IPropertyValueListener listener ) {
+        synchronized (lock) {
+            IPropertyValueListener[] current = valueListeners;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].equals( listener )) {
+                    IPropertyValueListener[] updated = current.length == 1 ? NO_VALUE_LISTENERS : new IPropertyValueListener[current.length - 1];
+                    System.arraycopy( current, 0, updated, 0, i );
+                    System.arraycopy( current, i + 1, updated, i, current.length - i - 1 );
+                    valueListeners = updated;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Atomically replaces the value stored in field and raises property change if value is really changed.
+     * Values are compared using {@link Object#equals(Object)}.
+     * @return true if value was changed
+     */
+    protected <T> boolean setProperty( AtomicReference<T> field, T value, String propName ) {
+        while (true) {
+            T oldValue = field.get();
+            if (oldValue == null ? value == null : oldValue.equals( value )) return false;
+            if (field.compareAndSet( oldValue, value )) {
+                raisePropertyChange( propName, oldValue, value );
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Atomically replaces the value stored in field and raises property change if value is really changed.
+     * @return true if value was changed
+     */
+    protected boolean setProperty( AtomicInteger field, int value, String propName ) {
+        int oldValue = field.getAndSet( value );
+        if (oldValue == value) return false;
+        raisePropertyChange( propName, oldValue, value );
+        return true;
+    }
+
+    /**
+     * Atomically replaces the value stored in field and raises property change if value is really changed.
+     * @return true if value was changed
+     */
+    protected boolean setProperty( AtomicLong field, long value, String propName ) {
+        long oldValue = field.getAndSet( value );
+        if (oldValue == value) return false;
+        raisePropertyChange( propName, oldValue, value );
+        return true;
+    }
+
+    /**
+     * Atomically replaces the value stored in field and raises property change if value is really changed.
+     * @return true if value was changed
+     */
+    protected boolean setProperty( AtomicBoolean field, boolean value, String propName ) {
+        boolean oldValue = field.getAndSet( value );
+        if (oldValue == value) return false;
+        raisePropertyChange( propName, oldValue, value );
+        return true;
+    }
+
+    public void addPropertyChangedListener( IPropertyChangedListener listener ) {
+        if (null == listener) throw new IllegalArgumentException( "listener is null" );
+        addListener( listener );
+    }
+
+    /**
+     * Adds listener that is weakly referenced by this view model: it is removed automatically
+     * after it has been garbage collected. Caller is responsible to keep listener reachable
+     * while it should receive notifications.
+     * Listener can be removed by {@link #removePropertyChangedListener(IPropertyChangedListener)}.
+     */
+    public void addWeakPropertyChangedListener( IPropertyChangedListener listener ) {
+        if (null == listener) throw new IllegalArgumentException( "listener is null" );
+        addListener( new WeakListener( listener, collectedListeners ) );
+    }
+
+    private void addListener( IPropertyChangedListener listener ) {
+        purgeCollectedListeners();
+        synchronized (lock) {
+            IPropertyChangedListener[] current = listeners;
+            IPropertyChangedListener[] updated = new IPropertyChangedListener[current.length + 1];
+            System.arraycopy( current, 0, updated, 0, current.length );
+            updated[current.length] = listener;
+            listeners = updated;
+            if (Metrics.ENABLED) {
+                if (null == metricsInstance) metricsInstance = metrics.track( this );
+                metrics.listenersChanged( metricsInstance, updated.length );
+            }
+        }
+    }
+
+    public void removePropertyChangedListener( IPropertyChangedListener listener ) {
+        purgeCollectedListeners();
+        removeListener( listener );
+    }
+
+    private void removeListener( IPropertyChangedListener listener ) {
+        synchronized (lock) {
+            IPropertyChangedListener[] current = listeners;
+            for (int i = 0; i < current.length; i++) {
+                IPropertyChangedListener registered = current[i];
+                if (registered instanceof WeakListener && registered != listener) registered = ((WeakListener) registered).get();
+                if (null != registered && registered.equals( listener )) {
+                    IPropertyChangedListener[] updated = current.length == 1 ? NO_LISTENERS : new IPropertyChangedListener[current.length - 1];
+                    System.arraycopy( current, 0, updated, 0, i );
+                    System.arraycopy( current, i + 1, updated, i, current.length - i - 1 );
+                    listeners = updated;
+                    if (Metrics.ENABLED) metrics.listenersChanged( metricsInstance, updated.length );
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes weak listeners that have been garbage collected.
+     */
+    private void purgeCollectedListeners() {
+        Object collected;
+        while (null != (collected = collectedListeners.poll())) {
+            // wrapper is compared by identity, so it is removed regardless of other registrations
+            removeListener( (WeakListener) collected );
+        }
+    }
+
+    /**
+     * Returns listeners subscribed to this view model (weak listeners are unwrapped, collected ones are skipped).
+     */
+    IPropertyChangedListener[] getListeners() {
+        IPropertyChangedListener[] snapshot = listeners;
+        IPropertyChangedListener[] result = new IPropertyChangedListener[snapshot.length];
+        int count = 0;
+        for (IPropertyChangedListener listener : snapshot) {
+            if (listener instanceof WeakListener) listener = ((WeakListener) listener).get();
+            if (null != listener) result[count++] = listener;
+        }
+        IPropertyChangedListener[] trimmed = new IPropertyChangedListener[count];
+        System.arraycopy( result, 0, trimmed, 0, count );
+        return trimmed;
+    }
+
+    /**
+     * Registration of weakly referenced listener. Enqueued when listener is collected.
+     */
+    private static final class WeakListener extends WeakReference<IPropertyChangedListener> implements IPropertyChangedListener {
+
+        WeakListener( IPropertyChangedListener listener, ReferenceQueue<IPropertyChangedListener> queue ) {
+            super( listener, queue );
+        }
+
+        @Override
+        public void propertyChanged( String propName ) {
+            IPropertyChangedListener listener = get();
+            if (null != listener) listener.propertyChanged( propName );
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package swingmvc.core;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable table of properties of one view model class.
+ * Built once per class and shared by all instances.
+ * Properties generated by swingmvc-processor (see {@link PropertyTable}) for the class and its superclasses
+ * are accessed via their keys, other read-write bean properties are looked up via reflection.
+ * @author elwood
+ */
+final class ViewModelAccessors {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<ViewModelAccessors> ACCESSORS = new ClassValue<ViewModelAccessors>() {
+        @Override
+        protected ViewModelAccessors computeValue(Class<?> type) {
+            return new ViewModelAccessors(type);
+        }
+    };
+
+    private static final String TABLE_SUFFIX = "_Properties";
+
+    private final String[] names;
+    // key of generated property, or null if property is accessed via getter and setter
+    private final PropertyKey<ViewModel, Object>[] keys;
+    private final MethodHandle[] getters;
+    private final MethodHandle[] setters;
+    private final boolean generated;
+    private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+    @SuppressWarnings("unchecked")
+    private ViewModelAccessors(Class<?> modelClass) {
+        // generated keys of superclasses first, keys of subclass override them
+        Map<String, PropertyKey<ViewModel, Object>> generatedKeys = new LinkedHashMap<String, PropertyKey<ViewModel, Object>>();
+        Class<?> superclass = modelClass.getSuperclass();
+        if (null != superclass && ViewModel.class.isAssignableFrom(superclass) && ViewModel.class != superclass) {
+            ViewModelAccessors parent = forClass(superclass);
+            for (int i = 0; i < parent.names.length; i++) {
+                if (null != parent.keys[i]) generatedKeys.put(parent.names[i], parent.keys[i]);
+            }
+        }
+        PropertyTable<ViewModel> table = loadTable(modelClass);
+        if (null != table) {
+            for (PropertyKey<ViewModel, ?> key : table.keys()) {
+                generatedKeys.put(key.getName(), (PropertyKey<ViewModel, Object>) key);
+            }
+        }
+        List<String> names = new ArrayList<String>(generatedKeys.keySet());
+        List<PropertyKey<ViewModel, Object>> keys = new ArrayList<PropertyKey<ViewModel, Object>>(generatedKeys.values());
+        List<MethodHandle> getters = new ArrayList<MethodHandle>();
+        List<MethodHandle> setters = new ArrayList<MethodHandle>();
+        for (int i = 0; i < names.size(); i++) {
+            getters.add(null);
+            setters.add(null);
+        }
+        PropertyDescriptor[] descriptors;
+        try {
+            // ViewModel itself declares no properties, and it can't be introspected up to itself
+            descriptors = ViewModel.class == modelClass
+                    ? new PropertyDescriptor[0]
+                    : Introspector.getBeanInfo(modelClass, ViewModel.class).getPropertyDescriptors();
+        } catch (IntrospectionException e) {
+            throw new RuntimeException(e);
+        }
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (PropertyDescriptor descriptor : descriptors) {
+            if (generatedKeys.containsKey(descriptor.getName())) continue;
+            Method getter = descriptor.getReadMethod();
+            Method setter = descriptor.getWriteMethod();
+            if (null == getter || null == setter) continue;
+            getter.setAccessible(true);
+            setter.setAccessible(true);
+            try {
+                getters.add(lookup.unreflect(getter).asType(GETTER_TYPE));
+                setters.add(lookup.unreflect(setter).asType(SETTER_TYPE));
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+            names.add(descriptor.getName());
+            keys.add(null);
+        }
+        this.names = names.toArray(new String[names.size()]);
+        this.keys = keys.toArray(new PropertyKey[keys.size()]);
+        this.getters = getters.toArray(new MethodHandle[getters.size()]);
+        this.setters = setters.toArray(new MethodHandle[setters.size()]);
+        this.generated = this.names.length == generatedKeys.size();
+        for (int i = 0; i < this.names.length; i++) {
+            indexes.put(this.names[i], i);
+        }
+    }
+
+    /**
+     * Looks for property table generated by swingmvc-processor for fields declared in specified class.
+     * @return Table instance or null if view model class was compiled without processor or has no marked fields
+     */
+    @SuppressWarnings("unchecked")
+    private static PropertyTable<ViewModel> loadTable(Class<?> modelClass) {
+        Class<?> tableClass;
+        try {
+            tableClass = Class.forName(modelClass.getName() + TABLE_SUFFIX, true, modelClass.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        if (!PropertyTable.class.isAssignableFrom(tableClass)) return null;
+        try {
+            return (PropertyTable<ViewModel>) tableClass.getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns accessors table for specified view model class.
+     */
+    static ViewModelAccessors forClass(Class<?> modelClass) {
+        return ACCESSORS.get(modelClass);
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    String name(int index) {
+        return names[index];
+    }
+
+    /**
+     * @return Index of property or -1 if there is no read-write property with this name
+     */
+    int indexOf(String propertyName) {
+        Integer index = indexes.get(propertyName);
+        return null == index ? -1 : index;
+    }
+
+    /**
+     * Returns generated key of property or null if property is accessed via reflection or there is no such property.
+     */
+    PropertyKey<?, ?> key(String propertyName) {
+        int index = indexOf(propertyName);
+        return index < 0 ? null : keys[index];
+    }
+
+    /**
+     * Returns true if all properties are accessed via generated keys.
+     */
+    boolean isGenerated() {
+        return generated;
+    }
+
+    Object get(Object model, int index) {
+        if (null != keys[index]) return keys[index].get((ViewModel) model);
+        try {
+            return getters[index].invokeExact(model);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    void set(Object model, int index, Object value) {
+        if (null != keys[index]) {
+            keys[index].set((ViewModel) model, value);
+            return;
+        }
+        try {
+            setters[index].invokeExact(model, value);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package swingmvc.core;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of one view model class, see {@link Metrics}.
+ * @author elwood
+ */
+public final class ViewModelMetrics implements ViewModelMetricsMXBean {
+
+    private final AtomicLong listenerCount = new AtomicLong();
+    // instances with listeners, their listeners are subtracted from count when instance is garbage collected
+    private final Set<Instance> instances = Collections.newSetFromMap(new ConcurrentHashMap<Instance, Boolean>());
+    private final ReferenceQueue<Object> collectedInstances = new ReferenceQueue<Object>();
+    private final AtomicLong maxListeners = new AtomicLong();
+    private final ConcurrentHashMap<String, AtomicLong> propertyChanges = new ConcurrentHashMap<String, AtomicLong>();
+    private final AtomicLong conflatedUpdates = new AtomicLong();
+    private volatile long startNanos = System.nanoTime();
+
+    ViewModelMetrics() {
+    }
+
+    /**
+     * Weak reference to view model instance with number of its listeners.
+     */
+    static final class Instance extends WeakReference<Object> {
+        volatile int listeners;
+
+        Instance(Object model, ReferenceQueue<Object> queue) {
+            super(model, queue);
+        }
+    }
+
+    Instance track(Object model) {
+        return new Instance(model, collectedInstances);
+    }
+
+    /**
+     * Called under lock of view model when its listeners are added or removed.
+     */
+    void listenersChanged(Instance instance, int instanceListeners) {
+        purgeCollectedInstances();
+        listenerCount.addAndGet(instanceListeners - instance.listeners);
+        instance.listeners = instanceListeners;
+        if (instanceListeners > 0) {
+            instances.add(instance);
+        } else {
+            instances.remove(instance);
+        }
+        long max;
+        while (instanceListeners > (max = maxListeners.get())) {
+            if (maxListeners.compareAndSet(max, instanceListeners)) break;
+        }
+    }
+
+    private void purgeCollectedInstances() {
+        Object collected;
+        while (null != (collected = collectedInstances.poll())) {
+            Instance instance = (Instance) collected;
+            if (instances.remove(instance)) listenerCount.addAndGet(-instance.listeners);
+        }
+    }
+
+    void propertyChanged(String propertyName) {
+        Metrics.increment(propertyChanges, String.valueOf(propertyName));
+    }
+
+    void updateConflated() {
+        conflatedUpdates.incrementAndGet();
+    }
+
+    @Override
+    public long getListenerCount() {
+        purgeCollectedInstances();
+        return listenerCount.get();
+    }
+
+    @Override
+    public long getMaxListenersPerInstance() {
+        return maxListeners.get();
+    }
+
+    @Override
+    public Map<String, Long> getPropertyChangeCounts() {
+        return Metrics.snapshot(propertyChanges);
+    }
+
+    @Override
+    public Map<String, Double> getPropertyChangeRates() {
+        double seconds = Math.max(1e-9, (System.nanoTime() - startNanos) / 1e9);
+        Map<String, Double> result = new HashMap<String, Double>();
+        for (Map.Entry<String, AtomicLong> entry : propertyChanges.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get() / seconds);
+        }
+        return result;
+    }
+
+    @Override
+    public long getConflatedUpdateCount() {
+        return conflatedUpdates.get();
+    }
+
+    /**
+     * Resets change counters, listener counters are not affected.
+     */
+    @Override
+    public void reset() {
+        propertyChanges.clear();
+        conflatedUpdates.set(0);
+        startNanos = System.nanoTime();
+    }
+}
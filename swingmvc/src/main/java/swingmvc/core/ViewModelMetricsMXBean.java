@@ -0,0 +1,37 @@
+package swingmvc.core;
+
+import java.util.Map;
+
+/**
+ * JMX interface of metrics collected for one view model class.
+ * @author elwood
+ */
+public interface ViewModelMetricsMXBean {
+    /**
+     * Number of listeners currently subscribed to all instances of the class.
+     * Listeners of instances that have been garbage collected are not counted.
+     */
+    long getListenerCount();
+
+    /**
+     * Maximal number of listeners subscribed to one instance.
+     */
+    long getMaxListenersPerInstance();
+
+    /**
+     * Number of property change notifications per property name.
+     */
+    Map<String, Long> getPropertyChangeCounts();
+
+    /**
+     * Average number of property change notifications per second since creation or last reset, per property name.
+     */
+    Map<String, Double> getPropertyChangeRates();
+
+    /**
+     * Number of changes merged with pending change of the same property in conflation mode.
+     */
+    long getConflatedUpdateCount();
+
+    void reset();
+}
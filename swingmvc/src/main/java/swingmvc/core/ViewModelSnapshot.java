@@ -0,0 +1,96 @@
+package swingmvc.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable copy of read-write property values of view model, created by {@link ViewModel#snapshot()}.
+ * Values are copied by reference, so mutable values should not be changed after snapshot is taken.
+ * Snapshot can be compared with another snapshot or model, and applied to model of the same class,
+ * writing only properties that differ, so notifications are raised only for them.
+ * Values are compared with {@link Object#equals(Object)}.
+ * @author elwood
+ */
+public final class ViewModelSnapshot {
+    private final Class<? extends ViewModel> modelClass;
+    private final ViewModelAccessors accessors;
+    private final Object[] values;
+
+    ViewModelSnapshot( ViewModel model, ViewModelAccessors accessors ) {
+        this.modelClass = model.getClass();
+        this.accessors = accessors;
+        this.values = new Object[accessors.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = accessors.get( model, i );
+        }
+    }
+
+    public Class<? extends ViewModel> getModelClass() {
+        return modelClass;
+    }
+
+    /**
+     * Returns captured value of specified property.
+     * @throws RuntimeException If there is no read-write property with this name
+     */
+    public Object get( String propName ) {
+        int index = accessors.indexOf( propName );
+        if (index < 0) throw new RuntimeException( String.format( "Property %s not found in %s", propName, modelClass.getName() ) );
+        return values[index];
+    }
+
+    /**
+     * Returns names of properties which values differ from values in specified snapshot.
+     */
+    public String[] diff( ViewModelSnapshot other ) {
+        checkClass( other.modelClass );
+        List<String> changed = new ArrayList<String>();
+        for (int i = 0; i < values.length; i++) {
+            if (!same( values[i], other.values[i] )) changed.add( accessors.name( i ) );
+        }
+        return changed.toArray( new String[changed.size()] );
+    }
+
+    /**
+     * Returns names of properties which current values in specified model differ from this snapshot.
+     */
+    public String[] diff( ViewModel model ) {
+        checkClass( model.getClass() );
+        List<String> changed = new ArrayList<String>();
+        for (int i = 0; i < values.length; i++) {
+            if (!same( values[i], accessors.get( model, i ) )) changed.add( accessors.name( i ) );
+        }
+        return changed.toArray( new String[changed.size()] );
+    }
+
+    /**
+     * Writes captured values to properties of target model that differ from this snapshot.
+     * Properties are written inside the batch (see {@link ViewModel#beginBatch()}), so notifications are
+     * delivered once, after all properties are written.
+     * @return Names of written properties
+     */
+    public String[] applyTo( ViewModel target ) {
+        checkClass( target.getClass() );
+        List<String> changed = new ArrayList<String>();
+        target.beginBatch();
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (same( values[i], accessors.get( target, i ) )) continue;
+                accessors.set( target, i, values[i] );
+                changed.add( accessors.name( i ) );
+            }
+        } finally {
+            target.commitBatch();
+        }
+        return changed.toArray( new String[changed.size()] );
+    }
+
+    private void checkClass( Class<?> otherClass ) {
+        if (otherClass != modelClass) throw new IllegalArgumentException( String.format(
+                "Snapshot of %s can not be compared with %s", modelClass.getName(), otherClass.getName() ) );
+    }
+
+    private static boolean same( Object value, Object other ) {
+        return value == null ? other == null : value.equals( other );
+    }
+}
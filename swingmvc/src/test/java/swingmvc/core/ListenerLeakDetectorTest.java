@@ -0,0 +1,98 @@
+package swingmvc.core;
+
+import binding.IPropertyChangedListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author elwood
+ */
+public class ListenerLeakDetectorTest {
+
+    /**
+     * Controller that subscribes anonymous listener to model and does not remove it when detached.
+     */
+    static class LeakyController extends Controller<JPanel, ViewModel> {
+        int changes = 0;
+
+        @Override
+        protected void onInitialized() {
+            getModel().addPropertyChangedListener( new IPropertyChangedListener() {
+                @Override
+                public void propertyChanged( String propName ) {
+                    changes++;
+                }
+            } );
+        }
+    }
+
+    static class CleanController extends Controller<JPanel, ViewModel> {
+    }
+
+    @Before
+    public void enable() {
+        ListenerLeakDetector.setEnabled( true );
+    }
+
+    @After
+    public void disable() {
+        ListenerLeakDetector.setEnabled( false );
+    }
+
+    private static List<ListenerLeakDetector.Leak> leaksOf( ViewModel model ) {
+        List<ListenerLeakDetector.Leak> result = new ArrayList<ListenerLeakDetector.Leak>();
+        for (ListenerLeakDetector.Leak leak : ListenerLeakDetector.findLeaks()) {
+            if (leak.getModel() == model) result.add( leak );
+        }
+        return result;
+    }
+
+    @Test
+    public void reportsListenerOfDetachedController() {
+        ViewModel model = new ViewModel();
+        LeakyController controller = new LeakyController();
+        controller.setModel( model );
+        controller.initialize( new JPanel() );
+        assertTrue( leaksOf( model ).isEmpty() );
+
+        controller.detach();
+
+        List<ListenerLeakDetector.Leak> leaks = leaksOf( model );
+        assertEquals( 1, leaks.size() );
+        assertSame( controller, leaks.get( 0 ).getController() );
+        assertTrue( leaks.get( 0 ).getListener() != controller );
+        assertTrue( leaks.get( 0 ).toString().contains( LeakyController.class.getName() ) );
+    }
+
+    @Test
+    public void detachedControllerWithoutOwnListenersIsNotReported() {
+        ViewModel model = new ViewModel();
+        CleanController controller = new CleanController();
+        controller.setModel( model );
+        controller.initialize( new JPanel() );
+
+        controller.detach();
+
+        assertTrue( leaksOf( model ).isEmpty() );
+    }
+
+    @Test
+    public void listenerIsNotReportedAfterControllerIsAttachedAgain() {
+        ViewModel model = new ViewModel();
+        LeakyController controller = new LeakyController();
+        controller.setModel( model );
+        controller.initialize( new JPanel() );
+
+        controller.detach();
+        controller.attach();
+
+        assertTrue( leaksOf( model ).isEmpty() );
+    }
+}